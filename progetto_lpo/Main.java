@@ -6,15 +6,28 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
 import progetto_lpo.parser.MyLangParser;
+import progetto_lpo.parser.MyLangScanner;
 import progetto_lpo.parser.MyLangTokenizer;
 import progetto_lpo.parser.ParserException;
+import progetto_lpo.parser.Tokenizer;
 import progetto_lpo.parser.ast.Prog;
+import progetto_lpo.visitors.bytecode.Compile;
+import progetto_lpo.visitors.bytecode.VM;
+import progetto_lpo.visitors.closures.CompileClosures;
 import progetto_lpo.visitors.execution.Execute;
+import progetto_lpo.visitors.execution.HashCons;
 import progetto_lpo.visitors.execution.InterpreterException;
+import progetto_lpo.visitors.execution.SwitchExecute;
+import progetto_lpo.visitors.execution.Tiering;
+import progetto_lpo.visitors.execution.TypedExecute;
+import progetto_lpo.visitors.jvm.CompileJvm;
+import progetto_lpo.visitors.optimization.Optimize;
+import progetto_lpo.visitors.serialization.ProgramCache;
 import progetto_lpo.visitors.typechecking.Typecheck;
 import progetto_lpo.visitors.typechecking.TypecheckerException;
 
@@ -24,6 +37,22 @@ public class Main {
 	private static final String INPUT_OPT = "-i";
 	private static final String OUTPUT_OPT = "-o";
 	private static final String NO_TYPE_CHECK = "-ntc";
+	private static final String REGEX_TOKENIZER = "-regex";
+	private static final String MAPPED_INPUT = "-mmap";
+	private static final String CACHE_OPT = "-cache";
+	private static final String NO_OPTIMIZE = "-nopt";
+	private static final String NO_MEMOIZE = "-nomemo";
+	private static final String ENGINE_OPT = "-engine";
+	private static final String TIER_OPT = "-tier";
+	private static final String STATS_OPT = "-stats";
+	private static final String HASH_CONS_OPT = "-hashcons";
+
+	// values of the -engine option
+	private static final String AST_ENGINE = "ast";
+	private static final String VM_ENGINE = "vm";
+	private static final String CLOSURE_ENGINE = "closure";
+	private static final String JVM_ENGINE = "jvm";
+	private static final String SWITCH_ENGINE = "switch";
 
 	/*
 	 * maps options to their string values, if any options with no argument are
@@ -35,6 +64,15 @@ public class Main {
 		options.put(INPUT_OPT, new String[1]); // one argument, initially null
 		options.put(OUTPUT_OPT, new String[1]); // one argument, initially null
 		options.put(NO_TYPE_CHECK, null); // no arguments
+		options.put(REGEX_TOKENIZER, null); // no arguments
+		options.put(MAPPED_INPUT, null); // no arguments
+		options.put(CACHE_OPT, new String[1]); // one argument, initially null
+		options.put(NO_OPTIMIZE, null); // no arguments
+		options.put(NO_MEMOIZE, null); // no arguments
+		options.put(ENGINE_OPT, new String[1]); // one argument, initially null
+		options.put(TIER_OPT, new String[1]); // one argument, initially null
+		options.put(STATS_OPT, null); // no arguments
+		options.put(HASH_CONS_OPT, null); // no arguments
 	}
 
 	// manage generic option errors
@@ -48,7 +86,7 @@ public class Main {
 		for (var i = 0; i < args.length; i++) {
 			var opt = args[i];
 			if (!options.containsKey(opt))
-				error("Option error.\nValid options:\n\t-i <input>\n\t-o <output>\n\t-ntc");
+				error("Option error.\nValid options:\n\t-i <input>\n\t-o <output>\n\t-ntc\n\t-regex\n\t-mmap\n\t-cache <dir>\n\t-nopt\n\t-nomemo\n\t-engine ast|vm|closure|jvm|switch\n\t-tier <threshold>\n\t-stats\n\t-hashcons");
 			var val = options.get(opt);
 			if (val == null) // set option with no argument (flag)
 				options.put(opt, new String[0]);
@@ -68,21 +106,143 @@ public class Main {
 		return new BufferedReader(inputPath == null ? new InputStreamReader(System.in) : new FileReader(inputPath));
 	}
 
+	/*
+	 * builds the tokenizer for the input, the regular expression based one if the -regex option is set; with the
+	 * -mmap option the -i file is memory-mapped and scanned in place
+	 */
+	private static Tokenizer tryOpenTokenizer(String inputPath) throws IOException {
+		if (options.get(REGEX_TOKENIZER) != null)
+			return new MyLangTokenizer(tryOpenInput(inputPath));
+		if (options.get(MAPPED_INPUT) != null && inputPath != null)
+			return MyLangScanner.mapFile(Path.of(inputPath));
+		return new MyLangScanner(tryOpenInput(inputPath));
+	}
+
 	// opens the output stream, standard output if -o option is null
 	private static PrintWriter tryOpenOutput(String outputPath) throws FileNotFoundException {
 		return outputPath == null ? new PrintWriter(System.out) : new PrintWriter(outputPath);
 	}
 
+	// parses the input program, its symbol table is returned together with it
+	private static ProgramCache.Entry tryParse(String inputPath) throws IOException, ParserException {
+		try (var tokenizer = tryOpenTokenizer(inputPath); var parser = new MyLangParser(tokenizer)) {
+			return new ProgramCache.Entry(parser.parseProg(), parser.getSymbolTable(), false);
+		}
+	}
+
+	/*
+	 * parses the input program and typechecks it, unless the -ntc option is set; with the -cache option, the
+	 * program is loaded from the cache directory if the content of the -i file was already parsed and, if needed,
+	 * typechecked; otherwise it is stored in the cache after parsing and typechecking
+	 */
+	private static Prog tryLoadProg(String inputPath) throws IOException, ParserException {
+		final var typecheck = options.get(NO_TYPE_CHECK) == null;
+		final var cacheDir = options.get(CACHE_OPT)[0];
+		if (cacheDir == null || inputPath == null) {
+			final var prog = tryParse(inputPath).prog();
+			if (typecheck)
+				prog.accept(new Typecheck());
+			return prog;
+		}
+		final var cache = new ProgramCache(Path.of(cacheDir));
+		final var key = cache.key(Path.of(inputPath));
+		var entry = cache.load(key);
+		final var upToDate = entry != null && (entry.typechecked() || !typecheck);
+		if (entry == null)
+			entry = tryParse(inputPath);
+		if (typecheck && !entry.typechecked())
+			entry.prog().accept(new Typecheck());
+		if (!upToDate)
+			cache.store(key, entry.prog(), entry.symbols(), typecheck || entry.typechecked());
+		return entry.prog();
+	}
+
+	/*
+	 * folds constant subexpressions and removes dead branches, unless the -nopt option is set; the optimizer
+	 * relies on the static semantics, hence it is not run on programs which were not typechecked
+	 */
+	private static Prog optimize(Prog prog) {
+		if (options.get(NO_OPTIMIZE) != null || options.get(NO_TYPE_CHECK) != null)
+			return prog;
+		return (Prog) prog.accept(new Optimize());
+	}
+
+	// the threshold of the -tier option, the default one if the option is not set
+	private static int tierThreshold() {
+		final var threshold = options.get(TIER_OPT)[0];
+		if (threshold == null)
+			return Tiering.DEFAULT_THRESHOLD;
+		try {
+			final var value = Integer.parseInt(threshold);
+			if (value >= 0)
+				return value;
+		} catch (NumberFormatException e) {
+		}
+		error("Invalid threshold " + threshold + " for option " + TIER_OPT);
+		return 0;
+	}
+
+	/*
+	 * runs the program with the AST interpreter, which uses the static types of expressions if the program was
+	 * typechecked, and compiles the hot for statements unless the threshold of the -tier option is 0; with the
+	 * -hashcons option, equal pairs and dicts built by the program are shared; with the -nomemo option, loop
+	 * invariant and common subexpressions are not memoized; with the -stats option, the tier transitions, the
+	 * counters of the inline caches of dict operations and of hash-consing are printed on the standard error
+	 */
+	private static void interpret(Prog prog, PrintWriter pw) {
+		final var threshold = tierThreshold();
+		final var typed = options.get(NO_TYPE_CHECK) == null;
+		final var tiering = threshold == 0 ? null : new Tiering(threshold, typed);
+		final var hashCons = options.get(HASH_CONS_OPT) == null ? null : new HashCons();
+		final var memoize = options.get(NO_MEMOIZE) == null;
+		final var execute = typed ? new TypedExecute(pw, tiering, hashCons, memoize)
+				: new Execute(pw, tiering, hashCons, memoize);
+		try {
+			prog.accept(execute);
+		} finally {
+			if (options.get(STATS_OPT) != null) {
+				pw.flush(); // the output of the program comes first
+				if (tiering != null)
+					tiering.printStats(System.err);
+				execute.printCacheStats(System.err);
+				if (hashCons != null)
+					hashCons.printStats(System.err);
+			}
+		}
+	}
+
+	/*
+	 * runs the program with the engine selected by the -engine option: the AST interpreter, which is the default,
+	 * the bytecode virtual machine, the tree of closures, which uses unboxed variables if the program was
+	 * typechecked, the JVM bytecode compiler, which falls back to the AST interpreter for the programs it cannot
+	 * compile, or the AST interpreter dispatching nodes by 'switch'
+	 */
+	private static void tryExecute(Prog prog, PrintWriter pw) {
+		final var engine = options.get(ENGINE_OPT)[0];
+		if (engine == null || engine.equals(AST_ENGINE))
+			interpret(prog, pw);
+		else if (engine.equals(VM_ENGINE))
+			new VM(pw).run(Compile.compile(prog));
+		else if (engine.equals(CLOSURE_ENGINE))
+			CompileClosures.compile(prog, options.get(NO_TYPE_CHECK) == null).run(pw);
+		else if (engine.equals(JVM_ENGINE)) {
+			final var compiled = CompileJvm.tryCompile(prog, options.get(NO_TYPE_CHECK) == null);
+			if (compiled != null)
+				compiled.run(pw);
+			else
+				interpret(prog, pw);
+		} else if (engine.equals(SWITCH_ENGINE))
+			new SwitchExecute(pw, options.get(NO_MEMOIZE) == null).execute(prog);
+		else
+			error("Unknown engine " + engine + ", valid engines: " + AST_ENGINE + ", " + VM_ENGINE + ", "
+					+ CLOSURE_ENGINE + ", " + JVM_ENGINE + ", " + SWITCH_ENGINE);
+	}
+
 	public static void main(String[] args) {
 		processArgs(args);
-		try (var rd = tryOpenInput(options.get(INPUT_OPT)[0]);
-				var tokenizer = new MyLangTokenizer(rd);
-				var parser = new MyLangParser(tokenizer);
-				var pw = tryOpenOutput(options.get(OUTPUT_OPT)[0]);) {
-			Prog prog = parser.parseProg();
-			if (options.get(NO_TYPE_CHECK) == null)
-				prog.accept(new Typecheck());
-			prog.accept(new Execute(pw));
+		try (var pw = tryOpenOutput(options.get(OUTPUT_OPT)[0]);) {
+			Prog prog = optimize(tryLoadProg(options.get(INPUT_OPT)[0]));
+			tryExecute(prog, pw);
 		} catch (IOException e) {
 			error("I/O error: " + e.getMessage());
 		} catch (ParserException e) {
@@ -0,0 +1,72 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.visitors.execution.Execute;
+import progetto_lpo.visitors.typechecking.Typecheck;
+
+/*
+ * stress test of deep expressions: for each operator, the program printing a chain 'x op x op ... op x', or
+ * 'op op ... op x' for the unary operators, with 'depth' operands or operators is parsed, typechecked, converted
+ * to a string and executed by 'Execute'
+ *
+ * the parser builds balanced trees for the chains of the associative operators '+', '*' and '&&', hence no phase
+ * should overflow the stack on them, even with the default stack size; ',' and '==' are not associative, and the
+ * operands of the unary operators are nested, hence their chains are trees of linear depth, which the recursive
+ * parser and visitors can only handle up to a depth bounded by the stack size, see the -Xss option of the JVM
+ *
+ * usage: ChainBenchmark <depth> <runs>
+ *
+ * each phase is run 'runs' times after as many warm-up runs, the median time is reported; a phase which overflows
+ * the stack is reported as such, and the following phases of its chain are skipped
+ */
+public class ChainBenchmark {
+
+	// name, declaration of the operand 'x', and prefix or infix operator of each chain
+	private static final String[][] CHAINS = { { "x + x", "var x = 1", "", "+" },
+			{ "x * x", "var x = 1", "", "*" }, { "x && x", "var x = true", "", "&&" },
+			{ "x, x", "var x = 1", "", "," }, { "x == x", "var x = true", "", "==" },
+			{ "- x", "var x = 1", "-", "" }, { "! x", "var x = true", "!", "" } };
+
+	// the source of the program printing the chain of 'depth' operands, or of 'depth' unary operators
+	private static String chain(String[] chain, int depth) {
+		final var source = new StringBuilder(chain[1]).append("; print ");
+		if (!chain[2].isEmpty())
+			source.append((chain[2] + ' ').repeat(depth)).append('x');
+		else {
+			source.append('x');
+			for (var i = 1; i < depth; i++)
+				source.append(' ').append(chain[3]).append(" x");
+		}
+		return source.toString();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: ChainBenchmark <depth> <runs>");
+			System.exit(1);
+		}
+		final var depth = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		System.out.printf("%-10s %12s %14s %13s %12s%n", "chain", "parse (ms)", "typecheck (ms)", "toString (ms)",
+				"execute (ms)");
+		for (var chain : CHAINS) {
+			final var source = chain(chain, depth);
+			System.out.printf("%-10s", chain[0]);
+			try {
+				final var prog = Harness.parse(source);
+				final Harness.Run[] phases = { out -> Harness.parse(source), out -> prog.accept(new Typecheck()),
+						out -> out.print(prog.toString()), out -> prog.accept(new Execute(out)) };
+				final int[] widths = { 12, 14, 13, 12 };
+				for (var i = 0; i < phases.length; i++)
+					System.out.printf(" %" + widths[i] + ".2f", Harness.medianMillis(phases[i], runs));
+				System.out.println();
+			} catch (StackOverflowError e) {
+				System.out.println(" stack overflow");
+			} catch (ParserException | RuntimeException e) { // syntax, static or dynamic errors
+				System.out.println(" skipped: " + e.getMessage());
+			}
+		}
+	}
+}
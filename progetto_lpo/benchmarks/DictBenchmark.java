@@ -0,0 +1,56 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.visitors.execution.Execute;
+
+/*
+ * microbenchmark of the dict operations: for each pattern and size, a dict with as many entries is built and used by
+ * 'Execute', the time per entry is reported; since dicts are persistent trees, it should grow with the logarithm of
+ * the size, not linearly; programs are not typechecked, as with the -ntc option, and their output is discarded
+ *
+ * the dict of 'd = d[k:v]' is owned by 'd' and updated in place, except in the shared pattern, where it is also
+ * copied into another variable by each iteration, hence each update copies a path; the loop variable of the iterate
+ * pattern is bound to the same pair in all the iterations, the one of the iterate pairs pattern escapes
+ *
+ * usage: DictBenchmark <runs> <size>...
+ *
+ * each program is run 'runs' times after as many warm-up runs, the median time is reported
+ */
+public class DictBenchmark {
+
+	// name and source of the program of each pattern, 'r' is the range of the size, see 'Range'
+	private static final String[][] PATTERNS = {
+			{ "update", "var d = [0:0]; for (var i of r) { d = d[fst i:snd i] }; print d[rSize + -1]" },
+			{ "sparse update", "var d = [0:0]; for (var i of r) { d = d[fst i * 7919:snd i] }; print d[0]" },
+			{ "shared update", "var d = [0:0]; var e = d; for (var i of r) { d = d[fst i:snd i]; e = d }; print e[0]" },
+			{ "lookup", "var d = [0:0]; for (var i of r) { d = d[fst i:snd i] }; var s = 0; "
+					+ "for (var i of r) { s = s + d[fst i] }; print s" },
+			{ "delete", "var d = [0:0]; for (var i of r) { d = d[fst i:snd i] }; "
+					+ "for (var i of r) { d = d[fst i:] }; print d" },
+			{ "iterate", "var d = [0:0]; for (var i of r) { d = d[fst i:snd i] }; var s = 0; "
+					+ "for (var p of d) { s = s + snd p }; print s" },
+			{ "iterate pairs", "var d = [0:0]; for (var i of r) { d = d[fst i:snd i] }; var q = (0,0); "
+					+ "for (var p of d) { q = p }; print q" } };
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: DictBenchmark <runs> <size>...");
+			System.exit(1);
+		}
+		final var runs = Integer.parseInt(args[0]);
+		System.out.printf("%-15s %10s %12s %14s%n", "pattern", "size", "time (ms)", "per entry (ns)");
+		for (var pattern : PATTERNS)
+			for (var i = 1; i < args.length; i++) {
+				final var size = Integer.parseInt(args[i]);
+				try {
+					final var prog = Harness.parse(Range.declare("r", size) + pattern[1]);
+					final var millis = Harness.medianMillis(out -> prog.accept(new Execute(out)), runs);
+					System.out.printf("%-15s %10d %12.2f %14.1f%n", pattern[0], size, millis, millis * 1e6 / size);
+				} catch (ParserException | RuntimeException e) { // syntax or dynamic errors
+					System.out.printf("%-15s %10d skipped: %s%n", pattern[0], size, e.getMessage());
+				}
+			}
+	}
+}
@@ -0,0 +1,83 @@
+package progetto_lpo.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+import progetto_lpo.visitors.execution.BoolValue;
+import progetto_lpo.visitors.execution.DictValue;
+
+/*
+ * microbenchmark of the representations of dicts: for each shape of keys, dicts with 'entries' entries in total are
+ * built by updates, then the representation they end up in, the retained heap per entry and the time of a lookup of
+ * a random key are reported; all entries share the same value, so only the dicts are measured
+ *
+ * usage: DictRepresentationBenchmark <entries> <runs>
+ *
+ * lookups are timed 'runs' times after as many warm-up runs, the median time is reported
+ */
+public class DictRepresentationBenchmark {
+
+	// name, number of entries of each dict, 0 for a single dict, and key of the i-th entry added
+	private record Shape(String name, int size, IntUnaryOperator key) {
+	}
+
+	private static final Shape[] SHAPES = { new Shape("small", 8, i -> 3 * i), new Shape("dense", 0, i -> i),
+			new Shape("dense holes", 0, i -> 2 * i), new Shape("sparse", 0, i -> 3 * i),
+			new Shape("random", 0, i -> i * 0x9E3779B9) };
+
+	private static long usedHeap() {
+		for (var i = 0; i < 3; i++)
+			System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	// median time in nanoseconds of a lookup of the keys 'keys' in the dicts 'dicts'
+	private static double lookupNanos(DictValue[] dicts, int[][] keys, int runs) {
+		final var times = new long[runs];
+		var found = 0;
+		for (var run = -runs; run < runs; run++) {
+			final var start = System.nanoTime();
+			for (var i = 0; i < dicts.length; i++)
+				for (var key : keys[i])
+					if (dicts[i].get(key) == BoolValue.TRUE)
+						found++;
+			if (run >= 0)
+				times[run] = System.nanoTime() - start;
+		}
+		if (found == 0)
+			throw new AssertionError();
+		Arrays.sort(times);
+		return (double) times[runs / 2] / (dicts.length * keys[0].length);
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.err.println("usage: DictRepresentationBenchmark <entries> <runs>");
+			System.exit(1);
+		}
+		final var entries = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		final var random = new Random(42);
+		System.out.printf("%-15s %8s %10s %16s %14s%n", "shape", "dicts", "repr", "bytes per entry", "lookup (ns)");
+		for (var shape : SHAPES) {
+			final var size = shape.size() == 0 ? entries : shape.size();
+			final var dicts = new DictValue[entries / size];
+			final var keys = new int[dicts.length][size];
+			final var before = usedHeap();
+			for (var i = 0; i < dicts.length; i++) {
+				var dict = DictValue.EMPTY;
+				for (var j = 0; j < size; j++)
+					dict = dict.put(shape.key().applyAsInt(j), BoolValue.TRUE);
+				dicts[i] = dict;
+			}
+			final var bytes = (double) (usedHeap() - before) / (dicts.length * size);
+			for (var i = 0; i < dicts.length; i++)
+				for (var j = 0; j < size; j++) // keys of the dict, in random order
+					keys[i][j] = shape.key().applyAsInt(random.nextInt(size));
+			System.out.printf("%-15s %8d %10s %16.1f %14.1f%n", shape.name(), dicts.length,
+					dicts[0].representation(), bytes, lookupNanos(dicts, keys, runs));
+		}
+	}
+}
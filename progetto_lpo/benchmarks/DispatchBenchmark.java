@@ -0,0 +1,52 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.parser.ast.Prog;
+import progetto_lpo.visitors.execution.Execute;
+import progetto_lpo.visitors.execution.SwitchExecute;
+
+/*
+ * compares the visitor based 'Execute' with 'SwitchExecute' on programs scaled up by running their body in a for
+ * loop; programs are not typechecked, as with the -ntc option, and their output is discarded
+ *
+ * usage: DispatchBenchmark <scale> <runs> <program>...
+ *
+ * each engine is run 'runs' times on each program after as many warm-up runs, the median time is reported; the
+ * programs which fail are skipped
+ */
+public class DispatchBenchmark {
+
+	private static final String LOOP_VAR = "benchmarkIteration"; // unlikely to clash with variables of the programs
+
+	// parses the program at 'path' with its statements executed 'scale' times, once per entry of a 'Range'
+	private static Prog scaledUp(Path path, int scale) throws IOException, ParserException {
+		final var source = Range.declare(LOOP_VAR + "s", scale) + "for (var " + LOOP_VAR + " of " + LOOP_VAR
+				+ "s) {\n" + Files.readString(path) + "\n}";
+		return Harness.parse(source);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("usage: DispatchBenchmark <scale> <runs> <program>...");
+			System.exit(1);
+		}
+		final var scale = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		System.out.printf("%-30s %12s %12s %8s%n", "program", "visitor (ms)", "switch (ms)", "speedup");
+		for (var i = 2; i < args.length; i++) {
+			final var path = Path.of(args[i]);
+			try {
+				final var prog = scaledUp(path, scale);
+				final var visitor = Harness.medianMillis(out -> prog.accept(new Execute(out)), runs);
+				final var switched = Harness.medianMillis(out -> new SwitchExecute(out).execute(prog), runs);
+				System.out.printf("%-30s %12.2f %12.2f %7.2fx%n", path, visitor, switched, visitor / switched);
+			} catch (ParserException | RuntimeException e) { // syntax or dynamic errors
+				System.out.printf("%-30s skipped: %s%n", path, e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.parser.ast.StmtSeq;
+import progetto_lpo.visitors.execution.Execute;
+import progetto_lpo.visitors.resolution.Resolve;
+
+/*
+ * microbenchmark of the statements fused by 'Fuse': for each pattern, a loop running only that statement is
+ * executed by 'Execute' with and without fusion; programs are not typechecked, as with the -ntc option, and their
+ * output is discarded
+ *
+ * usage: FusionBenchmark <iterations> <runs>
+ *
+ * each variant is run 'runs' times after as many warm-up runs, the median time is reported; the patterns which
+ * fail are skipped
+ */
+public class FusionBenchmark {
+
+	// name and source of the program of each pattern, 'r' is the range of the iterations, see 'Range'
+	private static final String[][] PATTERNS = {
+			{ "x = x + 1", "var x = 0; for (var i of r) { x = x + 1 }; print x" },
+			{ "d = d[k:v]", "var d = [0:0]; for (var i of r) { d = d[fst i:snd i] }; print d" },
+			{ "print a == b", "var a = (1, 2); var b = (1, 3); for (var i of r) { print a == b }" } };
+
+	// the interpreter with fusion disabled: the program is only resolved
+	private static class Unfused extends Execute {
+		Unfused(PrintWriter printWriter) {
+			super(printWriter);
+		}
+
+		@Override
+		protected StmtSeq prepare(StmtSeq stmtSeq) {
+			return (StmtSeq) stmtSeq.accept(new Resolve());
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: FusionBenchmark <iterations> <runs>");
+			System.exit(1);
+		}
+		final var iterations = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		System.out.printf("%-15s %12s %12s %8s%n", "pattern", "plain (ms)", "fused (ms)", "speedup");
+		for (var pattern : PATTERNS) {
+			try {
+				final var prog = Harness.parse(Range.declare("r", iterations) + pattern[1]);
+				final var plain = Harness.medianMillis(out -> prog.accept(new Unfused(out)), runs);
+				final var fused = Harness.medianMillis(out -> prog.accept(new Execute(out)), runs);
+				System.out.printf("%-15s %12.2f %12.2f %7.2fx%n", pattern[0], plain, fused, plain / fused);
+			} catch (ParserException | RuntimeException e) { // syntax or dynamic errors
+				System.out.printf("%-15s skipped: %s%n", pattern[0], e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.Arrays;
+
+import progetto_lpo.parser.MyLangParser;
+import progetto_lpo.parser.MyLangScanner;
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.parser.ast.Prog;
+
+/*
+ * helpers shared by the benchmarks: programs are parsed from their source code with the default tokenizer, and
+ * runs are timed by the median of 'runs' runs after as many warm-up runs, with their output discarded
+ */
+final class Harness {
+
+	// a run of an engine, or of a phase of the pipeline, printing on 'out'
+	interface Run {
+		void run(PrintWriter out) throws IOException, ParserException;
+	}
+
+	private Harness() {
+	}
+
+	static Prog parse(String source) throws IOException, ParserException {
+		try (var parser = new MyLangParser(new MyLangScanner(new StringReader(source)))) {
+			return parser.parseProg();
+		}
+	}
+
+	// median time in milliseconds of 'runs' runs of 'run', after as many warm-up runs
+	static double medianMillis(Run run, int runs) throws IOException, ParserException {
+		final var out = new PrintWriter(Writer.nullWriter());
+		for (var i = 0; i < runs; i++)
+			run.run(out);
+		final var times = new long[runs];
+		for (var i = 0; i < runs; i++) {
+			final var start = System.nanoTime();
+			run.run(out);
+			times[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(times);
+		return times[runs / 2] / 1e6;
+	}
+}
@@ -0,0 +1,59 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.visitors.execution.Execute;
+import progetto_lpo.visitors.execution.HashCons;
+
+/*
+ * microbenchmark of hash-consing: for each pattern, a program is executed by 'Execute' with and without the
+ * -hashcons mode, then the counters of the table of one more run are printed; programs are not typechecked, as with
+ * the -ntc option, and their output is discarded
+ *
+ * usage: HashConsBenchmark <size> <runs>
+ *
+ * the equal patterns compare values built separately, which are the same object with hash-consing, through a
+ * variable of the loop, so that the comparison is not memoized as invariant; the distinct pattern only builds pairs
+ * which are never equal, and measures the cost of the table; each variant is run 'runs' times after as many warm-up
+ * runs, the median time is reported; the patterns which fail are skipped
+ */
+public class HashConsBenchmark {
+
+	// name and source of the program of each pattern, 'r' is the range of the size, see 'Range'
+	private static final String[][] PATTERNS = {
+			{ "equal dicts", Range.declare("t", 1000) + "var d = [0:(0,0)]; var e = [0:(0,0)]; "
+					+ "for (var i of r) { d = d[fst i:(fst i,fst i)]; e = e[fst i:(fst i,fst i)] }; var c = 0; "
+					+ "for (var i of t) { var f = d; if (f == e) { c = c + 1 } }; print c" },
+			{ "equal pairs", Range.declare("t", 1000) + "var p = (0,0); var q = (0,0); "
+					+ "for (var i of t) { p = (p,fst i); q = (q,fst i) }; var c = 0; "
+					+ "for (var i of r) { var s = p; if (s == q) { c = c + 1 } }; print c" },
+			{ "distinct pairs", "var p = (0,0); for (var i of r) { p = (fst i,fst i + 1) }; print p" } };
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: HashConsBenchmark <size> <runs>");
+			System.exit(1);
+		}
+		final var size = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		System.out.printf("%-15s %12s %14s %8s%n", "pattern", "plain (ms)", "hashcons (ms)", "speedup");
+		for (var pattern : PATTERNS) {
+			try {
+				final var prog = Harness.parse(Range.declare("r", size) + pattern[1]);
+				final var plain = Harness.medianMillis(out -> prog.accept(new Execute(out)), runs);
+				final var hashConsed = Harness.medianMillis(out -> prog.accept(new Execute(out, null, new HashCons())),
+						runs);
+				System.out.printf("%-15s %12.2f %14.2f %7.2fx%n", pattern[0], plain, hashConsed, plain / hashConsed);
+				final var hashCons = new HashCons();
+				prog.accept(new Execute(new PrintWriter(Writer.nullWriter()), null, hashCons));
+				System.out.print("  ");
+				hashCons.printStats(System.out);
+			} catch (ParserException | RuntimeException e) { // syntax or dynamic errors
+				System.out.printf("%-15s skipped: %s%n", pattern[0], e.getMessage());
+			}
+		}
+	}
+}
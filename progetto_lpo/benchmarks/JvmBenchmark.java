@@ -0,0 +1,69 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.visitors.execution.TypedExecute;
+import progetto_lpo.visitors.jvm.CompileJvm;
+import progetto_lpo.visitors.typechecking.Typecheck;
+
+/*
+ * compares the JVM bytecode compiler with the AST interpreter on for-heavy workloads over dicts, and on a
+ * straight-line program as a baseline: for each pattern, the typechecked program is run by 'TypedExecute' and by
+ * the jvm engine; the loops are not tiered, as with the -tier 0 option, and the output is discarded
+ *
+ * the program is compiled once by 'CompileJvm' and the median time of its compilation is reported apart, then the
+ * same hidden class is run, so that it is warmed up by the JIT compiler of HotSpot as the interpreter is; a fresh
+ * class at each run would mostly time the bytecode interpreter of the JVM
+ *
+ * usage: JvmBenchmark <iterations> <runs>
+ *
+ * each engine is run 'runs' times after as many warm-up runs, the median time is reported; the patterns which fail,
+ * or which 'CompileJvm' rejects, are skipped, so that the jvm engine is never timed on its fallback
+ */
+public class JvmBenchmark {
+
+	// name and source of the program of each pattern, 'r' is the range of the iterations, see 'Range'
+	private static final String[][] PATTERNS = {
+			{ "x = x + 1", "var x = 0; for (var i of r) { x = x + 1 }; print x" },
+			{ "arithmetic", "var x = 0; for (var i of r) { x = x * 3 + fst i * snd i + -x }; print x" },
+			{ "dict sum", "var s = 0; for (var i of r) { s = s + r[fst i] }; print s" },
+			{ "nested", Range.declare("t", 10) + "var s = 0; "
+					+ "for (var i of t) { for (var j of r) { if (fst i == fst j) { s = s + 1 } } }; print s" } };
+
+	// the baseline with no for statements, short enough to stay within the code size limit of 'CompileJvm'
+	private static final String STRAIGHT_LINE = "var x = 0; " + "x = x * 3 + 1; ".repeat(200) + "print x";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: JvmBenchmark <iterations> <runs>");
+			System.exit(1);
+		}
+		final var iterations = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		System.out.printf("%-15s %12s %14s %12s %8s%n", "pattern", "ast (ms)", "compile (ms)", "jvm (ms)",
+				"speedup");
+		for (var pattern : PATTERNS)
+			report(pattern[0], Range.declare("r", iterations) + pattern[1], runs);
+		report("straight line", STRAIGHT_LINE, runs);
+	}
+
+	// prints the times of the engines on the program 'source' of the pattern 'name'
+	private static void report(String name, String source, int runs) throws IOException {
+		try {
+			final var prog = Harness.parse(source);
+			prog.accept(new Typecheck());
+			final var compiled = CompileJvm.tryCompile(prog, true);
+			if (compiled == null) {
+				System.out.printf("%-15s skipped: not compiled%n", name);
+				return;
+			}
+			final var ast = Harness.medianMillis(out -> prog.accept(new TypedExecute(out)), runs);
+			final var compile = Harness.medianMillis(out -> CompileJvm.tryCompile(prog, true), runs);
+			final var jvm = Harness.medianMillis(compiled::run, runs);
+			System.out.printf("%-15s %12.2f %14.2f %12.2f %7.2fx%n", name, ast, compile, jvm, ast / jvm);
+		} catch (ParserException | RuntimeException e) { // syntax, static or dynamic errors
+			System.out.printf("%-15s skipped: %s%n", name, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.parser.ast.StmtSeq;
+import progetto_lpo.visitors.execution.Execute;
+import progetto_lpo.visitors.optimization.Fuse;
+import progetto_lpo.visitors.resolution.Resolve;
+
+/*
+ * microbenchmark of the expressions memoized by 'Memoize': for each pattern, a loop is executed by 'Execute' with
+ * and without memoization; programs are not typechecked, as with the -ntc option, and their output is discarded
+ *
+ * usage: MemoBenchmark <iterations> <runs>
+ *
+ * each variant is run 'runs' times after as many warm-up runs, the median time is reported; the patterns which
+ * fail are skipped
+ */
+public class MemoBenchmark {
+
+	// name and source of the program of each pattern, 'r' is the range of the iterations, see 'Range'
+	private static final String[][] PATTERNS = {
+			{ "invariant", "var a = 3; var b = (4, 5); var s = 0; "
+					+ "for (var i of r) { s = s + a * fst b * snd b + fst i }; print s" },
+			{ "common", "var s = 0; for (var i of r) { s = s + (fst i * fst i + 1) * (fst i * fst i + 1) }; print s" },
+			{ "nested", Range.declare("t", 10) + "var s = 0; "
+					+ "for (var i of t) { for (var j of r) { s = s + (fst i * fst i + -fst i) * fst j } }; print s" } };
+
+	// the interpreter with memoization disabled: the program is only resolved and fused
+	private static class Unmemoized extends Execute {
+		Unmemoized(PrintWriter printWriter) {
+			super(printWriter);
+		}
+
+		@Override
+		protected StmtSeq prepare(StmtSeq stmtSeq) {
+			return (StmtSeq) stmtSeq.accept(new Resolve()).accept(new Fuse());
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: MemoBenchmark <iterations> <runs>");
+			System.exit(1);
+		}
+		final var iterations = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		System.out.printf("%-15s %12s %12s %8s%n", "pattern", "plain (ms)", "memo (ms)", "speedup");
+		for (var pattern : PATTERNS) {
+			try {
+				final var prog = Harness.parse(Range.declare("r", iterations) + pattern[1]);
+				final var plain = Harness.medianMillis(out -> prog.accept(new Unmemoized(out)), runs);
+				final var memo = Harness.medianMillis(out -> prog.accept(new Execute(out)), runs);
+				System.out.printf("%-15s %12.2f %12.2f %7.2fx%n", pattern[0], plain, memo, plain / memo);
+			} catch (ParserException | RuntimeException e) { // syntax or dynamic errors
+				System.out.printf("%-15s skipped: %s%n", pattern[0], e.getMessage());
+			}
+		}
+	}
+}
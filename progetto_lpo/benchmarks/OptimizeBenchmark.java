@@ -0,0 +1,55 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.parser.ast.Prog;
+import progetto_lpo.visitors.execution.TypedExecute;
+import progetto_lpo.visitors.optimization.Optimize;
+import progetto_lpo.visitors.typechecking.Typecheck;
+
+/*
+ * gain of 'Optimize': for each pattern, a loop evaluating constant subexpressions is executed by 'TypedExecute'
+ * as is, as with the -nopt option, and after optimizing it, as by default; programs are typechecked first, and the
+ * optimized variant includes the time of the optimizer, as for a run of 'Main'; the output is discarded
+ *
+ * constant subexpressions in loops are also memoized as invariant by 'Memoize', hence the gain is mostly that of
+ * the checks which are no longer needed
+ *
+ * usage: OptimizeBenchmark <iterations> <runs>
+ *
+ * each variant is run 'runs' times after as many warm-up runs, the median time is reported; the patterns which
+ * fail are skipped
+ */
+public class OptimizeBenchmark {
+
+	// name and source of the program of each pattern, 'r' is the range of the iterations, see 'Range'
+	private static final String[][] PATTERNS = {
+			{ "arithmetic", "var s = 0; for (var i of r) { s = s + (2 * 3 + -(4)) * fst i }; print s" },
+			{ "dead branch", "var s = 0; for (var i of r) { if (true && !false) { s = s + 1 } else { s = s + 2 } }; "
+					+ "print s" },
+			{ "dict literal", "var s = 0; for (var i of r) { s = s + [0 + 1:2 * 3][1 * 2:3 * 3][2] }; print s" },
+			{ "pair", "var s = 0; for (var i of r) { s = s + fst (1, 2) * snd (3, 4) }; print s" } };
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: OptimizeBenchmark <iterations> <runs>");
+			System.exit(1);
+		}
+		final var iterations = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		System.out.printf("%-15s %12s %15s %8s%n", "pattern", "-nopt (ms)", "optimized (ms)", "speedup");
+		for (var pattern : PATTERNS) {
+			try {
+				final var prog = Harness.parse(Range.declare("r", iterations) + pattern[1]);
+				prog.accept(new Typecheck());
+				final var plain = Harness.medianMillis(out -> prog.accept(new TypedExecute(out)), runs);
+				final var optimized = Harness.medianMillis(
+						out -> ((Prog) prog.accept(new Optimize())).accept(new TypedExecute(out)), runs);
+				System.out.printf("%-15s %12.2f %15.2f %7.2fx%n", pattern[0], plain, optimized, plain / optimized);
+			} catch (ParserException | RuntimeException e) { // syntax, static or dynamic errors
+				System.out.printf("%-15s skipped: %s%n", pattern[0], e.getMessage());
+			}
+		}
+	}
+}
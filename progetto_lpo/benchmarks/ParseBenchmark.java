@@ -0,0 +1,82 @@
+package progetto_lpo.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import progetto_lpo.parser.MyLangParser;
+import progetto_lpo.parser.MyLangScanner;
+import progetto_lpo.parser.MyLangTokenizer;
+import progetto_lpo.parser.ParserException;
+import progetto_lpo.parser.Tokenizer;
+
+/*
+ * parse throughput on a large generated file: a program of 'statements' expression-heavy statements, using all the
+ * binary operators, the unary ones and the postfix dict forms, is written to a temporary file, which is then parsed
+ * with each tokenizer: the scanner reading the file, the scanner on the memory-mapped file, as with the -mmap
+ * option, and the regular expression based tokenizer, as with the -regex option
+ *
+ * usage: ParseBenchmark <statements> <runs>
+ *
+ * each tokenizer is run 'runs' times after as many warm-up runs, the median time and the throughput are reported;
+ * the program is generated from a fixed seed, hence it is the same in all the executions of the benchmark
+ */
+public class ParseBenchmark {
+
+	// a tokenizer of the file 'path'
+	private interface TokenizerFactory {
+		Tokenizer open(Path path) throws IOException;
+	}
+
+	// name and factory of each tokenizer
+	private static final String[] NAMES = { "scanner", "mmap", "regex" };
+	private static final TokenizerFactory[] TOKENIZERS = { path -> new MyLangScanner(Files.newBufferedReader(path)),
+			MyLangScanner::mapFile, path -> new MyLangTokenizer(Files.newBufferedReader(path)) };
+
+	// the source of a program of 'statements' statements, each with a few operators of each kind
+	private static String generate(int statements) {
+		final var random = new Random(42);
+		final var source = new StringBuilder();
+		for (var i = 0; i < statements; i++) {
+			final var n = random.ints(8, 0, 1000).toArray();
+			source.append(String.format("var x%d = [%d:(%d + %d * -%d, !true && %d == %d)][%d:fst (%d, x%d)][%d:];\n",
+					i, n[0], n[1], n[2], n[3], n[4], n[5], n[6], n[7], i, n[0]));
+			source.append(String.format("print x%d[%d] == (%d, false) && snd (x%d, %d * %d + %d) == %d;\n", i, n[6],
+					n[1], i, n[2], n[3], n[4], n[5]));
+		}
+		return source.append("print 0\n").toString();
+	}
+
+	private static void parse(TokenizerFactory tokenizer, Path path) throws IOException, ParserException {
+		try (var parser = new MyLangParser(tokenizer.open(path))) {
+			parser.parseProg();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: ParseBenchmark <statements> <runs>");
+			System.exit(1);
+		}
+		final var statements = Integer.parseInt(args[0]);
+		final var runs = Integer.parseInt(args[1]);
+		final var path = Files.createTempFile("ParseBenchmark", ".txt");
+		try {
+			Files.writeString(path, generate(statements));
+			final var megabytes = Files.size(path) / 1e6;
+			System.out.printf("%d statements, %.2f MB%n", statements, megabytes);
+			System.out.printf("%-10s %12s %12s%n", "tokenizer", "time (ms)", "MB/s");
+			for (var i = 0; i < NAMES.length; i++)
+				try {
+					final var tokenizer = TOKENIZERS[i];
+					final var millis = Harness.medianMillis(out -> parse(tokenizer, path), runs);
+					System.out.printf("%-10s %12.2f %12.2f%n", NAMES[i], millis, megabytes * 1e3 / millis);
+				} catch (ParserException | RuntimeException e) { // syntax errors
+					System.out.printf("%-10s skipped: %s%n", NAMES[i], e.getMessage());
+				}
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package progetto_lpo.benchmarks;
+
+/*
+ * source code of the dicts iterated by the loops of the benchmarks, since for statements only iterate dicts: the
+ * range of 'size' entries, from 0:0 to size-1:size-1, is built by doubling it along the binary digits of 'size',
+ * with a number of statements logarithmic in 'size'; its keys are contiguous, hence it is a dense dict
+ *
+ * the range is built by each run of a program, hence the time of the benchmarks includes a linear setup
+ */
+final class Range {
+
+	private Range() {
+	}
+
+	/*
+	 * statements declaring 'var' with the range of 'size' entries, and 'var'Size with its size; the statements are
+	 * followed by a semicolon
+	 */
+	static String declare(String var, int size) {
+		if (size < 0)
+			throw new IllegalArgumentException("Negative size " + size);
+		if (size == 0)
+			return String.format("var %1$s = [0:0][0:]; var %1$sSize = 0; ", var);
+		final var source = new StringBuilder(String.format("var %1$s = [0:0]; var %1$sSize = 1; ", var));
+		for (var bit = Integer.highestOneBit(size) >> 1; bit > 0; bit >>= 1) {
+			source.append(String.format("for (var %1$sEntry of %1$s) { %1$s = %1$s[fst %1$sEntry + %1$sSize:"
+					+ "fst %1$sEntry + %1$sSize] }; %1$sSize = %1$sSize + %1$sSize; ", var));
+			if ((size & bit) != 0)
+				source.append(String.format("%1$s = %1$s[%1$sSize:%1$sSize]; %1$sSize = %1$sSize + 1; ", var));
+		}
+		return source.toString();
+	}
+}
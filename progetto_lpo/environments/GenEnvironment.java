@@ -2,22 +2,45 @@ package progetto_lpo.environments;
 
 import static java.util.Objects.requireNonNull;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.Arrays;
 
 import progetto_lpo.parser.ast.NamedEntity;
 
+/*
+ * the scope chain is represented by the innermost binding of each variable, indexed by the variable id; each binding
+ * refers to the binding it shadows, if any, so that it can be restored when the scope is removed; hence lookups and
+ * updates do not depend on the number of nested scopes
+ */
 public class GenEnvironment<T> implements Environment<T> {
 
-	private LinkedList<HashMap<NamedEntity, T>> scopeChain = new LinkedList<>();
+	/* binding of a variable with 'info' in the scope at nesting level 'depth' */
+	private static class Binding<T> {
+		private final int depth;
+		private final Binding<T> shadowed; // binding of the same variable in an outer scope, if any
+		private T info;
+
+		private Binding(int depth, Binding<T> shadowed, T info) {
+			this.depth = depth;
+			this.shadowed = shadowed;
+			this.info = info;
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Binding<T>[] bindings = new Binding[16]; // innermost binding of each variable, indexed by id
+	private int[] declared = new int[16]; // ids of the variables declared in the scope chain, innermost last
+	private int declaredCount; // number of ids in 'declared'
+	private int[] scopeStarts = new int[16]; // for each scope, the index in 'declared' of its first variable
+	private int depth = -1; // nesting level of the innermost scope
 
 	/*
 	 * enter a new nested scope; private method shared by 'enterScope()' and the
 	 * constructor 'GenEnvironment()'
 	 */
 	private void addEmptyScope() {
-		scopeChain.addFirst(new HashMap<>());
+		if (++depth == scopeStarts.length)
+			scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+		scopeStarts[depth] = declaredCount;
 	}
 
 	/* create an environment with just one empty scope */
@@ -32,32 +55,34 @@ public class GenEnvironment<T> implements Environment<T> {
 
 	@Override
 	public void exitScope() {
-		scopeChain.removeFirst();
+		while (declaredCount > scopeStarts[depth]) {
+			final var id = declared[--declaredCount];
+			bindings[id] = bindings[id].shadowed;
+		}
+		depth--;
+	}
+
+	// the innermost binding of 'var', null if 'var' is not declared
+	private Binding<T> binding(NamedEntity var) {
+		final var id = var.id();
+		return id < bindings.length ? bindings[id] : null;
 	}
 
 	/*
-	 * looks up the innermost scope where 'var' is found;
+	 * looks up the innermost binding of 'var';
 	 * throws an 'EnvironmentException' if 'var' could not be found in any scope
 	 */
 
-	protected Map<NamedEntity, T> resolve(NamedEntity var) {
-		for (var scope : scopeChain)
-			if (scope.containsKey(var))
-				return scope;
-		throw new EnvironmentException("Undeclared " + var);
+	private Binding<T> resolve(NamedEntity var) {
+		final var binding = binding(var);
+		if (binding == null)
+			throw new EnvironmentException("Undeclared " + var);
+		return binding;
 	}
 
 	@Override
 	public T lookup(NamedEntity var) {
-		return resolve(var).get(var);
-	}
-
-	/*
-	 * updates map to associate 'var' with 'info'; 'var' and 'info' must be non-null
-	 */
-
-	private static <T> T updateScope(Map<NamedEntity, T> map, NamedEntity var, T info) {
-		return map.put(requireNonNull(var), requireNonNull(info));
+		return resolve(var).info;
 	}
 
 	/*
@@ -67,10 +92,17 @@ public class GenEnvironment<T> implements Environment<T> {
 
 	@Override
 	public T dec(NamedEntity var, T info) {
-		var scope = scopeChain.getFirst();
-		if (scope.containsKey(var))
+		final var shadowed = binding(requireNonNull(var));
+		if (shadowed != null && shadowed.depth == depth)
 			throw new EnvironmentException(var + " already declared");
-		return updateScope(scope, var, info);
+		final var id = var.id();
+		if (id >= bindings.length)
+			bindings = Arrays.copyOf(bindings, Math.max(id + 1, bindings.length * 2));
+		if (declaredCount == declared.length)
+			declared = Arrays.copyOf(declared, declaredCount * 2);
+		bindings[id] = new Binding<>(depth, shadowed, requireNonNull(info));
+		declared[declaredCount++] = id;
+		return null;
 	}
 
 	/*
@@ -80,8 +112,10 @@ public class GenEnvironment<T> implements Environment<T> {
 
 	@Override
 	public T update(NamedEntity var, T info) {
-		var scope = resolve(var);
-		return updateScope(scope, var, info);
+		final var binding = resolve(var);
+		final var previous = binding.info;
+		binding.info = requireNonNull(info);
+		return previous;
 	}
 
 }
@@ -1,6 +1,11 @@
 
 package progetto_lpo.parser;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
 import javax.lang.model.element.VariableElement;
 
 import progetto_lpo.parser.ast.*;
@@ -25,7 +30,8 @@ Atom :: = '[' Exp ':' Exp ']' | BOOL | NUM | IDENT | '(' Exp ')'
 
 public class MyLangParser implements Parser {
 
-	private final MyLangTokenizer tokenizer; // the tokenizer used by the parser
+	private final Tokenizer tokenizer; // the tokenizer used by the parser
+	private final SymbolTable symbols; // interns the variables, shared by all their occurrences
 
 	/*
 	 * reads the next token through the tokenizer associated with the
@@ -71,9 +77,19 @@ public class MyLangParser implements Parser {
 				String.format("Unexpected token %s ('%s')", tokenizer.tokenType(), tokenizer.tokenString())));
 	}
 
-	// associates the parser with a corresponding non-null  tokenizer
-	public MyLangParser(MyLangTokenizer tokenizer) {
+	// associates the parser with a corresponding non-null tokenizer and symbol table
+	public MyLangParser(Tokenizer tokenizer, SymbolTable symbols) {
 		this.tokenizer = requireNonNull(tokenizer);
+		this.symbols = requireNonNull(symbols);
+	}
+
+	// associates the parser with a corresponding non-null tokenizer and a new symbol table
+	public MyLangParser(Tokenizer tokenizer) {
+		this(tokenizer, new SymbolTable());
+	}
+
+	public SymbolTable getSymbolTable() {
+		return symbols;
 	}
 
 	/*
@@ -94,16 +110,17 @@ public class MyLangParser implements Parser {
 	}
 
 	/*
-	* parses a non empty sequence of statements, binary operator STMT_SEP is right
-	* associative StmtSeq ::= Stmt (';' StmtSeq)?
+	* parses a non empty sequence of statements StmtSeq ::= Stmt (';' StmtSeq)?
+	* statements are collected in a loop into a flat sequence, to avoid one nested call per statement
 	*/
 	private StmtSeq parseStmtSeq() throws ParserException {
-		final var stmt = parseStmt();
-		if (tokenizer.tokenType() == STMT_SEP) {
+		final var stmts = new ArrayList<Stmt>();
+		stmts.add(parseStmt());
+		while (tokenizer.tokenType() == STMT_SEP) {
 			nextToken();
-			return new NonEmptyStmtSeq(stmt, parseStmtSeq());
+			stmts.add(parseStmt());
 		}
-		return new NonEmptyStmtSeq(stmt, new EmptyStmtSeq());
+		return new ArrayStmtSeq(stmts);
 	}
 
 	/*
@@ -192,86 +209,114 @@ public class MyLangParser implements Parser {
 	}
 
 	/*
-	* parses expressions, starting from the lowest precedence operator PAIR_OP
-	* which is left-associative Exp ::= And (',' And)*
+	* kinds of the operators in the operator table: LEFT for left-associative binary operators, ASSOC for
+	* associative binary operators, whose chains are built as balanced trees, POSTFIX for the dict forms
+	* '[' Exp ']', '[' Exp ':' Exp ']' and '[' Exp ':' ']'
 	*/
-	private Exp parseExp() throws ParserException {
-		var exp = parseAnd();
-		while (tokenizer.tokenType() == PAIR_OP) {
-			nextToken();
-			exp = new PairLit(exp, parseAnd());
-		}
-		return exp;
+	private enum OpKind {
+		LEFT, ASSOC, POSTFIX
+	}
+
+	// entry of the operator table; 'node' builds the AST of binary operators, it is null for POSTFIX
+	private record Operator(TokenType token, int precedence, OpKind kind, BinaryOperator<Exp> node) {
 	}
 
+	/* precedence levels, from the lowest to the highest */
+	private static final int PAIR_PREC = 1, AND_PREC = 2, EQ_PREC = 3, ADD_PREC = 4, MUL_PREC = 5, UNARY_PREC = 6,
+			DICT_PREC = 7;
+
 	/*
-	* parses expressions, starting from the lowest precedence operator AND which is
-	* left-associative And ::= Eq ('&&' Eq)*
-	*/
-	private Exp parseAnd() throws ParserException {
-		var exp = parseEq();
-		while (tokenizer.tokenType() == AND) {
-			nextToken();
-			exp = new And(exp, parseEq());
-		}
-		return exp;
+	 * operator table driving the expression parser, indexed by the token type of the operators; only the chains of
+	 * the ASSOC operators are balanced, the chains of the LEFT operators ',' and '==', which are not associative,
+	 * and the nested unary operators build trees of linear depth, hence the parser and the visitors, which are
+	 * recursive, overflow the stack on long enough chains of them, about 10^4 operators with the default stack
+	 * size; see ChainBenchmark for the depths handled with a given stack size
+	 */
+	private static final Map<TokenType, Operator> operators = new EnumMap<>(TokenType.class);
+
+	static {
+		for (var op : List.of(new Operator(PAIR_OP, PAIR_PREC, OpKind.LEFT, PairLit::new),
+				new Operator(AND, AND_PREC, OpKind.ASSOC, And::new), new Operator(EQ, EQ_PREC, OpKind.LEFT, Eq::new),
+				new Operator(PLUS, ADD_PREC, OpKind.ASSOC, Add::new),
+				new Operator(TIMES, MUL_PREC, OpKind.ASSOC, Mul::new),
+				new Operator(OPEN_S_PAR, DICT_PREC, OpKind.POSTFIX, null)))
+			operators.put(op.token(), op);
 	}
 
 	/*
-	* parses expressions, starting from the lowest precedence operator EQ which is
-	* left-associative Eq ::= Add ('==' Add)*
+	* parses expressions, starting from the lowest precedence operator PAIR_OP
+	* Exp ::= And (',' And)*
 	*/
-	private Exp parseEq() throws ParserException {
-		var exp = parseAdd();
-		while (tokenizer.tokenType() == EQ) {
-			nextToken();
-			exp = new Eq(exp, parseAdd());
-		}
-		return exp;
+	private Exp parseExp() throws ParserException {
+		return parseExp(PAIR_PREC);
 	}
 
 	/*
-	* parses expressions, starting from the lowest precedence operator PLUS which
-	* is left-associative Add ::= Mul ('+' Mul)*
+	* parses expressions by precedence climbing, see the grammar of Exp, And, Eq, Add, Mul, Unary and Dict:
+	* only operators with precedence at least 'minPrec' are consumed, the right operand of a binary operator
+	* must only contain operators with higher precedence
 	*/
-	private Exp parseAdd() throws ParserException {
-		var exp = parseMul();
-		while (tokenizer.tokenType() == PLUS) {
-			nextToken();
-			exp = new Add(exp, parseMul());
-		}
+	private Exp parseExp(int minPrec) throws ParserException {
+		var exp = parseUnary();
+		for (Operator op; (op = operators.get(tokenizer.tokenType())) != null && op.precedence() >= minPrec;)
+			exp = switch (op.kind()) {
+			case LEFT -> {
+				nextToken();
+				yield op.node().apply(exp, parseExp(op.precedence() + 1));
+			}
+			case ASSOC -> parseChain(exp, op);
+			case POSTFIX -> parseDictOp(exp);
+			};
 		return exp;
 	}
 
 	/*
-	* Mul::= Unary ('*' Unary)*
+	* builds a balanced tree of the associative operator 'op' over the operands in [from,to), which keep their left
+	* to right order; hence the depth of the tree is logarithmic in the number of operands, and visitors can handle
+	* arbitrarily long chains of operators without overflowing the stack
 	*/
-	private Exp parseMul() throws ParserException {
-		var exp = parseUnary();
-		while (tokenizer.tokenType() == TIMES) {
+	private static Exp balanced(List<Exp> operands, int from, int to, BinaryOperator<Exp> op) {
+		if (to - from == 1)
+			return operands.get(from);
+		final var mid = (from + to) >>> 1;
+		return op.apply(balanced(operands, from, mid, op), balanced(operands, mid, to, op));
+	}
+
+	// parses the chain of operands of the associative operator 'op', whose first operand is 'first'
+	private Exp parseChain(Exp first, Operator op) throws ParserException {
+		final var operands = new ArrayList<Exp>();
+		operands.add(first);
+		while (tokenizer.tokenType() == op.token()) {
 			nextToken();
-			exp = new Mul(exp, parseUnary());
+			operands.add(parseExp(op.precedence() + 1));
 		}
-		return exp;
+		return balanced(operands, 0, operands.size(), op.node());
 	}
 
 	/*
 	* parses expressions of type Unary 
 	* Unary ::= 'fst' Unary | 'snd' Unary | '-' Unary | '!' Unary | Dict
+	* the operand of a unary operator can only contain other unary operators and dict forms
 	*/
 	private Exp parseUnary() throws ParserException {
 		return switch (tokenizer.tokenType()) {
-			case MINUS -> parseMinus();  // Parsing del segno meno unario
-			case NOT -> parseNot();  // Parsing della negazione unaria
-			case FST -> parseFst();  // Parsing della funzione 'fst'
-			case SND -> parseSnd();  // Parsing della funzione 'snd'
-			
-			// questo è sbagliato perche per andare in dict non si avra mai una parentesi quadra almeno credo
-			// una soluzione potrebbe essere che se non sono presenti fst, snd, - o ! allora si va in parseDict() di default 
-			//case OPEN_S_PAR -> parseDict();  // Parsing del dizionario (parsing della struttura con '[')
-			
-			//default -> parseAtom();  // In assenza di operatori unari, considera l'espressione come un atom
-			default -> parseDict();
+		case MINUS -> {
+			nextToken();
+			yield new Sign(parseExp(UNARY_PREC));
+		}
+		case NOT -> {
+			nextToken();
+			yield new Not(parseExp(UNARY_PREC));
+		}
+		case FST -> {
+			nextToken();
+			yield new Fst(parseExp(UNARY_PREC));
+		}
+		case SND -> {
+			nextToken();
+			yield new Snd(parseExp(UNARY_PREC));
+		}
+		default -> parseAtom();
 		};
 	}
 
@@ -290,29 +335,25 @@ public class MyLangParser implements Parser {
 		};
 	}
 
-	//Dict ::= Atom ('[' Exp (':' Exp?)? ']')*					////////////////////////////////////////////////
-	private Exp parseDict() throws ParserException {
-		var exp = parseAtom();
-		while (tokenizer.tokenType() == OPEN_S_PAR){
-			consume(OPEN_S_PAR);
-			Exp index = parseExp();
-			if (tokenizer.tokenType() == DOUBLE_DOT) {
-				consume(DOUBLE_DOT);
-				// se ho la parentesi quadra chiusa allora ho una cancellazione
-				if (tokenizer.tokenType() == CLOSE_S_PAR) {
-					consume(CLOSE_S_PAR);
-					exp = new DictDelete(exp, index);
-				}
-				else{
-					exp = new DictUpdate(exp ,index, parseExp());
-					consume(CLOSE_S_PAR);
-				}
-			}else{
-				exp = new DictAccess(exp, index);
-				consume(CLOSE_S_PAR);
-			}
+	/*
+	* parses a dict form applied to 'dict'
+	* Dict ::= Atom ('[' Exp (':' Exp?)? ']')*
+	*/
+	private Exp parseDictOp(Exp dict) throws ParserException {
+		consume(OPEN_S_PAR);
+		final var index = parseExp();
+		if (tokenizer.tokenType() != DOUBLE_DOT) {
+			consume(CLOSE_S_PAR);
+			return new DictAccess(dict, index);
 		}
-		return exp;
+		consume(DOUBLE_DOT);
+		if (tokenizer.tokenType() == CLOSE_S_PAR) { // deletion
+			consume(CLOSE_S_PAR);
+			return new DictDelete(dict, index);
+		}
+		final var value = parseExp();
+		consume(CLOSE_S_PAR);
+		return new DictUpdate(dict, index, value);
 	}
 
 	// parses number literals
@@ -329,47 +370,12 @@ public class MyLangParser implements Parser {
 		return new BoolLiteral(val);
 	}
 
-	// parses variable identifiers
+	// parses variable identifiers, the same object is returned for all the occurrences of an identifier
 	private Variable parseVariable() throws ParserException {
-		final var variable = tokenizer.tokenString();
-		consume(IDENT);
-		return new Variable(variable);
-	}
-
-	/*
-	* parses expressions with unary operator MINUS Atom ::= '-' Atom
-	*/
-	private Sign parseMinus() throws ParserException {
-		consume(MINUS);
-		final var exp = new Sign(parseAtom());
-		return exp;
-	}
-
-	/*
-	* parses expressions with unary operator FST Atom ::= 'fst' Atom
-	*/
-	private Fst parseFst() throws ParserException {
-		consume(FST);
-		final var exp = new Fst(parseAtom());
-		return exp;
-	}
-
-	/*
-	* parses expressions with unary operator SND Atom ::= 'snd' Atom
-	*/
-	private Snd parseSnd() throws ParserException {
-		consume(SND);
-		final var exp = new Snd(parseAtom());
-		return exp;
-	}
-
-	/*
-	* parses expressions with unary operator NOT Atom ::= '!' Atom
-	*/
-	private Not parseNot() throws ParserException {
-		consume(NOT);
-		final var exp = new Not(parseAtom());
-		return exp;
+		match(IDENT);
+		final var variable = tokenizer.variable(symbols);
+		nextToken();
+		return variable;
 	}
 
 	/*
@@ -0,0 +1,393 @@
+package progetto_lpo.parser;
+
+import static progetto_lpo.parser.TokenType.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import progetto_lpo.parser.ast.Variable;
+
+/*
+ * hand-written scanner recognizing the same lexemes as 'MyLangTokenizer' in a single pass over the characters of
+ * the input, without any regular expression; symbols, keywords, identifiers, numbers, white spaces and single line
+ * comments are recognized by switching on the current character
+ *
+ * the input is read in chunks into a reused buffer and the current token is kept as the offsets [start,pos) into
+ * it, hence no object is allocated per token; strings are built only when 'tokenString()' is called
+ *
+ * alternatively, the whole input can be provided at once as a 'CharBuffer', for instance by 'mapFile()'; then the
+ * buffer is scanned in place and line numbers are computed only when needed, from an index of the line starts
+ */
+public class MyLangScanner implements Tokenizer {
+
+	private static final int BUFFER_SIZE = 1 << 13; // initial size of the buffer
+
+	private final Reader reader; // the reader used by the scanner, null if the whole input is in 'buf'
+	private char[] buf = new char[BUFFER_SIZE]; // reused buffer, the valid characters are in [0,limit)
+	private int limit; // end of the valid characters in 'buf'
+	private int pos; // position of the next character to be scanned in 'buf'
+	private int start; // start of the most recently recognized lexeme in 'buf'
+	private TokenType tokenType; // type of the most recently recognized token, null if none
+
+	private int lines; // number of line terminators scanned so far
+	private boolean afterCR; // whether the last scanned character was '\r', then a following '\n' does not count
+	private boolean lineHasChars; // whether the current line has characters other than the line terminator
+	private int[] lineStarts; // offsets of the lines following a line terminator, lazily built if 'reader' is null
+
+	public MyLangScanner(Reader reader) {
+		this.reader = reader;
+	}
+
+	// scans the remaining characters of 'input' in place, without copying them if the buffer is backed by an array
+	public MyLangScanner(CharBuffer input) {
+		this.reader = null;
+		if (input.hasArray() && input.arrayOffset() == 0 && input.position() == 0)
+			buf = input.array();
+		else {
+			buf = new char[input.remaining()];
+			input.get(buf);
+		}
+		limit = input.hasArray() && buf == input.array() ? input.limit() : buf.length;
+	}
+
+	/*
+	 * memory-maps the file at 'path' and decodes it once with the default charset, as 'FileReader' does; the
+	 * returned scanner works directly on the decoded characters
+	 */
+	public static MyLangScanner mapFile(Path path) throws IOException {
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final var bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new MyLangScanner(Charset.defaultCharset().decode(bytes));
+		}
+	}
+
+	/*
+	 * reads more characters into the buffer; the current lexeme starting at 'start' is moved at the beginning of
+	 * the buffer, which grows if needed; returns false if EOF was reached
+	 */
+	private boolean fill() throws TokenizerException {
+		if (reader == null) // the whole input is already in the buffer
+			return false;
+		if (start > 0) {
+			System.arraycopy(buf, start, buf, 0, limit - start);
+			limit -= start;
+			pos -= start;
+			start = 0;
+		}
+		if (limit == buf.length) {
+			final var newBuf = new char[buf.length * 2];
+			System.arraycopy(buf, 0, newBuf, 0, limit);
+			buf = newBuf;
+		}
+		try {
+			final var read = reader.read(buf, limit, buf.length - limit);
+			if (read <= 0)
+				return false;
+			limit += read;
+			return true;
+		} catch (IOException e) {
+			throw new TokenizerException(e);
+		}
+	}
+
+	// checks whether there are still characters to be scanned
+	private boolean hasNext() throws TokenizerException {
+		return pos < limit || fill();
+	}
+
+	// the character at 'pos', or 0 if EOF was reached
+	private char peek() throws TokenizerException {
+		return hasNext() ? buf[pos] : 0;
+	}
+
+	// same characters as '\w' in regular expressions
+	private static boolean isWordChar(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+	}
+
+	// same characters as '\s' in regular expressions
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	// same characters as '.' in regular expressions
+	private static boolean isLineChar(char c) {
+		return c != '\n' && c != '\r' && c != '\u0085' && c != '\u2028' && c != '\u2029';
+	}
+
+	// returns the keyword type of the lexeme in [start,pos), or IDENT if it is not a keyword
+	private TokenType keywordOrIdent() {
+		switch (buf[start]) {
+		case 'e':
+			if (isLexeme("else"))
+				return ELSE;
+			break;
+		case 'f':
+			if (isLexeme("false"))
+				return BOOL;
+			if (isLexeme("fst"))
+				return FST;
+			if (isLexeme("for"))
+				return FOR;
+			break;
+		case 'i':
+			if (isLexeme("if"))
+				return IF;
+			break;
+		case 'o':
+			if (isLexeme("of"))
+				return OF;
+			break;
+		case 'p':
+			if (isLexeme("print"))
+				return PRINT;
+			break;
+		case 's':
+			if (isLexeme("snd"))
+				return SND;
+			break;
+		case 't':
+			if (isLexeme("true"))
+				return BOOL;
+			break;
+		case 'v':
+			if (isLexeme("var"))
+				return VAR;
+			break;
+		}
+		return IDENT;
+	}
+
+	// checks whether the lexeme in [start,pos) is 'keyword'
+	private boolean isLexeme(String keyword) {
+		if (keyword.length() != pos - start)
+			return false;
+		for (var i = 0; i < keyword.length(); i++)
+			if (buf[start + i] != keyword.charAt(i))
+				return false;
+		return true;
+	}
+
+	// builds the exception for the unrecognized lexeme starting at 'pos', reported up to the end of the line
+	private TokenizerException unrecognizedToken() throws TokenizerException {
+		start = pos;
+		while (hasNext() && buf[pos] != '\n' && buf[pos] != '\r')
+			pos++;
+		return new TokenizerException(String.format("on line %s unrecognized token starting at '%s'",
+				currentLine(), new String(buf, start, pos - start)));
+	}
+
+	/*
+	 * recognizes the next lexeme starting from 'pos', which must be a valid position of the buffer; returns SKIP
+	 * for white spaces and comments
+	 */
+	private TokenType scan() throws TokenizerException {
+		start = pos;
+		final var c = buf[pos++];
+		switch (c) {
+		case '=':
+			if (peek() == '=') {
+				pos++;
+				return EQ;
+			}
+			return ASSIGN;
+		case '&':
+			if (peek() == '&') {
+				pos++;
+				return AND;
+			}
+			pos--;
+			throw unrecognizedToken();
+		case '/':
+			if (peek() == '/') { // single line comment
+				while (hasNext() && isLineChar(buf[pos]))
+					pos++;
+				afterCR = false;
+				lineHasChars = true;
+				return SKIP;
+			}
+			pos--;
+			throw unrecognizedToken();
+		case '-':
+			return MINUS;
+		case '+':
+			return PLUS;
+		case '*':
+			return TIMES;
+		case '!':
+			return NOT;
+		case ';':
+			return STMT_SEP;
+		case ',':
+			return PAIR_OP;
+		case '(':
+			return OPEN_PAR;
+		case ')':
+			return CLOSE_PAR;
+		case '{':
+			return OPEN_BLOCK;
+		case '}':
+			return CLOSE_BLOCK;
+		case ':':
+			return DOUBLE_DOT;
+		case '[':
+			return OPEN_S_PAR;
+		case ']':
+			return CLOSE_S_PAR;
+		case '0': // radix 10 natural numbers have no leading zeros
+			return NUM;
+		}
+		if (isSpace(c)) { // line terminators are counted here, since they can only occur in white spaces
+			if (reader == null) { // lines are computed only when needed
+				while (pos < limit && isSpace(buf[pos]))
+					pos++;
+				return SKIP;
+			}
+			pos--;
+			for (char s; isSpace(s = peek()); pos++)
+				if (s == '\n' || s == '\r') {
+					if (s == '\r' || !afterCR)
+						lines++;
+					afterCR = s == '\r';
+					lineHasChars = false;
+				} else {
+					afterCR = false;
+					lineHasChars = true;
+				}
+			return SKIP;
+		}
+		if (c >= '1' && c <= '9') {
+			for (char d; (d = peek()) >= '0' && d <= '9';)
+				pos++;
+			return NUM;
+		}
+		if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') {
+			while (isWordChar(peek()))
+				pos++;
+			return keywordOrIdent();
+		}
+		pos--;
+		throw unrecognizedToken();
+	}
+
+	@Override
+	public TokenType next() throws TokenizerException {
+		tokenType = null;
+		do {
+			if (!hasNext()) {
+				start = pos;
+				return tokenType = EOF;
+			}
+			tokenType = scan();
+		} while (tokenType == SKIP); // keeps advancing when skippable tokens are recognized
+		afterCR = false;
+		lineHasChars = true;
+		return tokenType;
+	}
+
+	private void checkLegalState() {
+		if (tokenType == null)
+			throw new IllegalStateException("No token was recognized");
+	}
+
+	private void checkLegalState(TokenType tokenType) {
+		checkLegalState();
+		if (this.tokenType != tokenType)
+			throw new IllegalStateException(String.format("No token of type %s was recognized", tokenType));
+	}
+
+	@Override
+	public TokenType tokenType() {
+		return tokenType;
+	}
+
+	@Override
+	public String tokenString() { // lexeme of the most recently recognized token, if any
+		checkLegalState();
+		return new String(buf, start, pos - start);
+	}
+
+	@Override
+	public Variable variable(SymbolTable symbols) { // no string is built if the identifier was already interned
+		checkLegalState(IDENT);
+		return symbols.intern(buf, start, pos - start);
+	}
+
+	@Override
+	public boolean boolValue() { // boolean value of the most recently recognized token, if of type BOOL
+		checkLegalState(BOOL);
+		return buf[start] == 't';
+	}
+
+	/*
+	 * integer value of the most recently recognized token, if of type NUM; digits are read straight from the
+	 * buffer, a NumberFormatException is thrown on overflow, as 'Integer.decode()' does
+	 */
+	@Override
+	public int intValue() {
+		checkLegalState(NUM);
+		var val = 0L;
+		for (var i = start; i < pos; i++) {
+			val = val * 10 + buf[i] - '0';
+			if (val > Integer.MAX_VALUE)
+				throw new NumberFormatException(String.format("For input string: \"%s\"", tokenString()));
+		}
+		return (int) val;
+	}
+
+	// builds the offsets of the lines following a line terminator, '\r\n' counts as a single terminator
+	private int[] lineStarts() {
+		if (lineStarts == null) {
+			var starts = new int[16];
+			var count = 0;
+			for (var i = 0; i < limit; i++) {
+				final var c = buf[i];
+				if (c == '\n' || c == '\r') {
+					if (c == '\r' && i + 1 < limit && buf[i + 1] == '\n')
+						i++;
+					if (count == starts.length)
+						starts = Arrays.copyOf(starts, count * 2);
+					starts[count++] = i + 1;
+				}
+			}
+			lineStarts = Arrays.copyOf(starts, count);
+		}
+		return lineStarts;
+	}
+
+	// line of the lexeme starting at 'start'
+	private int currentLine() {
+		if (reader != null)
+			return lines + 1;
+		final var index = Arrays.binarySearch(lineStarts(), start);
+		return index >= 0 ? index + 2 : -index;
+	}
+
+	/*
+	 * line of the most recently recognized token; at EOF, the number of lines of the input, as 'LineNumberReader'
+	 * does
+	 */
+	@Override
+	public int getLineNumber() {
+		if (tokenType != EOF)
+			return currentLine();
+		if (reader != null)
+			return lineHasChars ? lines + 1 : lines;
+		final var starts = lineStarts();
+		final var lastStart = starts.length == 0 ? 0 : starts[starts.length - 1];
+		return lastStart < limit ? starts.length + 1 : starts.length;
+	}
+
+	@Override
+	public void close() throws IOException { // tokenizers are auto-closeable
+		if (reader != null)
+			reader.close();
+	}
+
+}
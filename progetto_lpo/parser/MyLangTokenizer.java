@@ -26,6 +26,7 @@ public class MyLangTokenizer implements Tokenizer {
 	private String line; // currently processed line
 	private final Matcher matcher = Pattern.compile(regEx).matcher(""); // the matcher used by the tokenizer
 	private MatchResult result; // the current result of the match
+	private static final MatchResult eofResult; // result matching group name 'EOF.name()' with the empty lexeme
 	
 	static { // initialization of the symbol and keyword tables: symbols and keywords are singleton lexical categories 
 		
@@ -76,7 +77,7 @@ public class MyLangTokenizer implements Tokenizer {
 		final var symbolRegEx = String.format("(?<%s>%s)", SYMBOL.name(), String.join("|", symbolList)); // symbols
 		/* builds the regular expressions for the other groups
 		 * remark: keywordRegEx uses word boundary '\b' since keywords match only if the next symbol is not a letter */
-		final var keywordRegEx = String.format("(?<%s>%s\\b)", KEYWORD.name(),
+		final var keywordRegEx = String.format("(?<%s>(?:%s)\\b)", KEYWORD.name(),
 				String.join("|", keywords.keySet())); // keywords
 		final var skipRegEx = String.format("(?<%s>\\s+|//.*)", SKIP.name()); // white spaces or single line comments to be skipped
 		final var identRegEx = String.format("(?<%s>[a-zA-Z]\\w*)", IDENT.name()); // identifiers
@@ -86,6 +87,10 @@ public class MyLangTokenizer implements Tokenizer {
 		 * example: 'if' is a keyword but not an identifier */
 		regEx = String.join("|", symbolRegEx, keywordRegEx, skipRegEx, identRegEx,
 				numRegEx); 
+		/* builds once the result returned at EOF */
+		final var eofMatcher = Pattern.compile(String.format("(?<%s>)", EOF.name())).matcher("");
+		eofMatcher.matches();
+		eofResult = eofMatcher.toMatchResult();
 	}
 
 	public MyLangTokenizer(BufferedReader br) {
@@ -143,10 +148,8 @@ public class MyLangTokenizer implements Tokenizer {
 		resetState();
 		TokenType tokenType = null;
 		do {
-			if (!hasNext()) { // builds a matcher and a result matching group name 'EOF.name()' with the empty lexeme 
-				var m = Pattern.compile(String.format("(?<%s>)",EOF.name())).matcher("");
-				m.matches();
-				result = m.toMatchResult();
+			if (!hasNext()) {
+				result = eofResult;
 				return EOF;
 			}
 			if (!matcher.lookingAt())
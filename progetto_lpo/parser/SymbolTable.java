@@ -0,0 +1,78 @@
+package progetto_lpo.parser;
+
+import java.util.ArrayList;
+
+import progetto_lpo.parser.ast.Variable;
+
+/*
+ * interns identifiers: each distinct name is associated with a single 'Variable' object, whose id is the dense
+ * index 0,1,2,... of the name in order of first occurrence; names can be looked up also from a range of
+ * characters, so that tokenizers do not need to build a string for each occurrence of an identifier
+ */
+public class SymbolTable {
+
+	private Variable[] table = new Variable[64]; // open addressing hash table, its length is a power of two
+	private final ArrayList<Variable> variables = new ArrayList<>(); // interned variables, indexed by id
+
+	// same hash code as 'String.hashCode()'
+	private static int hash(char[] chars, int offset, int length) {
+		var h = 0;
+		for (var i = offset; i < offset + length; i++)
+			h = 31 * h + chars[i];
+		return h;
+	}
+
+	private static boolean sameName(Variable var, char[] chars, int offset, int length) {
+		final var name = var.name();
+		if (name.length() != length)
+			return false;
+		for (var i = 0; i < length; i++)
+			if (name.charAt(i) != chars[offset + i])
+				return false;
+		return true;
+	}
+
+	// doubles the size of the hash table
+	private void rehash() {
+		final var newTable = new Variable[table.length * 2];
+		final var mask = newTable.length - 1;
+		for (var var : variables) {
+			var i = var.name().hashCode() & mask;
+			while (newTable[i] != null)
+				i = (i + 1) & mask;
+			newTable[i] = var;
+		}
+		table = newTable;
+	}
+
+	// returns the variable named by the characters in [offset,offset+length) of 'chars', interning it if needed
+	public Variable intern(char[] chars, int offset, int length) {
+		final var mask = table.length - 1;
+		var i = hash(chars, offset, length) & mask;
+		for (Variable var; (var = table[i]) != null; i = (i + 1) & mask)
+			if (sameName(var, chars, offset, length))
+				return var;
+		final var var = new Variable(new String(chars, offset, length), variables.size());
+		variables.add(var);
+		table[i] = var;
+		if (variables.size() * 2 > table.length) // load factor at most 1/2
+			rehash();
+		return var;
+	}
+
+	// returns the variable named 'name', interning it if needed
+	public Variable intern(String name) {
+		return intern(name.toCharArray(), 0, name.length());
+	}
+
+	// the variable with identifier 'id'
+	public Variable get(int id) {
+		return variables.get(id);
+	}
+
+	// number of interned variables
+	public int size() {
+		return variables.size();
+	}
+
+}
@@ -2,6 +2,8 @@ package progetto_lpo.parser;
 
 import java.io.IOException;
 
+import progetto_lpo.parser.ast.Variable;
+
 public interface Tokenizer extends AutoCloseable {
 
 	TokenType next() throws TokenizerException;
@@ -10,6 +12,11 @@ public interface Tokenizer extends AutoCloseable {
 
 	String tokenString();
 
+	// variable of the most recently recognized token, if of type IDENT, interned in 'symbols'
+	default Variable variable(SymbolTable symbols) {
+		return symbols.intern(tokenString());
+	}
+
 	int intValue();
 
 	boolean boolValue();
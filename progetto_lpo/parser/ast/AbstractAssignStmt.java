@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import static java.util.Objects.requireNonNull;
 
-public abstract class AbstractAssignStmt implements Stmt {
+public abstract sealed class AbstractAssignStmt implements Stmt permits AssignStmt, VarStmt {
 	protected final Variable var;
 	protected final Exp exp;
 
@@ -11,6 +11,14 @@ public abstract class AbstractAssignStmt implements Stmt {
 		this.exp = requireNonNull(exp);
 	}
 
+	public Variable getVar() {
+		return var;
+	}
+
+	public Exp getExp() {
+		return exp;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s,%s)", getClass().getSimpleName(), var, exp);
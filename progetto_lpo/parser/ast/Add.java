@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class Add extends BinaryOp {
+public final class Add extends BinaryOp {
 	public Add(Exp left, Exp right) {
 		super(left, right);
 	}
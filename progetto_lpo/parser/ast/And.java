@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class And extends BinaryOp {
+public final class And extends BinaryOp {
 	public And(Exp left, Exp right) {
 		super(left, right);
 	}
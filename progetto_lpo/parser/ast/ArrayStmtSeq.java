@@ -0,0 +1,34 @@
+package progetto_lpo.parser.ast;
+
+import java.util.List;
+
+import progetto_lpo.visitors.Visitor;
+
+/*
+ * flat sequence of statements, built by the parser in a loop; equivalent to the right-nested chain of
+ * 'NonEmptyStmtSeq' ending with 'EmptyStmtSeq', but it can be visited with a plain loop, whatever its length
+ */
+public final class ArrayStmtSeq implements StmtSeq {
+	private final List<Stmt> stmts;
+
+	public ArrayStmtSeq(List<Stmt> stmts) {
+		this.stmts = List.copyOf(stmts);
+	}
+
+	public List<Stmt> getStmts() {
+		return stmts;
+	}
+
+	@Override
+	public String toString() {
+		final var sb = new StringBuilder(getClass().getSimpleName()).append('(');
+		for (var i = 0; i < stmts.size(); i++)
+			sb.append(i > 0 ? "," : "").append(stmts.get(i));
+		return sb.append(')').toString();
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitArrayStmtSeq(stmts);
+	}
+}
@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class AssignStmt extends AbstractAssignStmt {
+public final class AssignStmt extends AbstractAssignStmt {
 
 	public AssignStmt(Variable var, Exp exp) {
 		super(var, exp);
@@ -1,6 +1,6 @@
 package progetto_lpo.parser.ast;
 
-public abstract class AtomicLiteral<T> implements Exp {
+public abstract sealed class AtomicLiteral<T> implements Exp permits IntLiteral, BoolLiteral {
 
 	protected final T value;
 
@@ -8,6 +8,10 @@ public abstract class AtomicLiteral<T> implements Exp {
 		this.value = n;
 	}
 
+	public T getValue() {
+		return value;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s)", getClass().getSimpleName(), value);
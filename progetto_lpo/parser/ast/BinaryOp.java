@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import static java.util.Objects.requireNonNull;
 
-public abstract class BinaryOp implements Exp {
+public abstract sealed class BinaryOp implements Exp permits Add, Mul, And, Eq, PairLit {
 	protected final Exp left;
 	protected final Exp right;
 
@@ -11,6 +11,14 @@ public abstract class BinaryOp implements Exp {
 		this.right = requireNonNull(right);
 	}
 
+	public Exp getLeft() {
+		return left;
+	}
+
+	public Exp getRight() {
+		return right;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s,%s)", getClass().getSimpleName(), left, right);
@@ -4,13 +4,17 @@ import static java.util.Objects.requireNonNull;
 
 import progetto_lpo.visitors.Visitor;
 
-public class Block implements Stmt {
+public final class Block implements Stmt {
 	private final StmtSeq stmtSeq;
 
 	public Block(StmtSeq stmtSeq) {
 		this.stmtSeq = requireNonNull(stmtSeq);
 	}
 
+	public StmtSeq getStmtSeq() {
+		return stmtSeq;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s)", getClass().getSimpleName(), stmtSeq);
@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class BoolLiteral extends AtomicLiteral<Boolean> {
+public final class BoolLiteral extends AtomicLiteral<Boolean> {
 
 	public BoolLiteral(boolean b) {
 		super(b);
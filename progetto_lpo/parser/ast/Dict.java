@@ -3,7 +3,7 @@ package progetto_lpo.parser.ast;
 import progetto_lpo.visitors.Visitor;
 import static java.util.Objects.requireNonNull;
 
-public class Dict implements Exp {
+public final class Dict implements Exp {
     private final Exp key;
     private final Exp value;
 
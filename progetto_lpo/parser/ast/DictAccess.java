@@ -2,18 +2,36 @@ package progetto_lpo.parser.ast;
 import progetto_lpo.visitors.Visitor;
 
 // Rappresenta un accesso a un dizionario, come dict[key]
-public class DictAccess implements Exp {
+public final class DictAccess implements Exp {
     private final Exp dict;
     private final Exp index;
+    private final InlineCache cache = new InlineCache(); // lookups of this node
 
     public DictAccess(Exp dict, Exp index) {
         this.dict = dict;
         this.index = index;
     }
 
+    public Exp getDict() {
+        return dict;
+    }
+
+    public Exp getIndex() {
+        return index;
+    }
+
+    public InlineCache getCache() {
+        return cache;
+    }
+
     @Override
     public <T> T accept(Visitor<T> visitor) {
-        return visitor.visitDictAccess(dict, index);
+        return visitor.visitDictAccess(dict, index, cache);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%s,%s)", getClass().getSimpleName(), dict, index);
     }
 }
 
@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 import progetto_lpo.visitors.Visitor;
 
 // Rappresenta una cancellazione da un dizionario, come delete dict[key]
-public class DictDelete implements Exp {
+public final class DictDelete implements Exp {
     private final Exp dict;
     private final Exp index;
 
@@ -11,8 +11,21 @@ public class DictDelete implements Exp {
         this.index = index;
     }
 
+    public Exp getDict() {
+        return dict;
+    }
+
+    public Exp getIndex() {
+        return index;
+    }
+
     @Override
     public <T> T accept(Visitor<T> visitor) {
         return visitor.visitDictDelete(dict, index);
     }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%s,%s)", getClass().getSimpleName(), dict, index);
+    }
 }
@@ -0,0 +1,34 @@
+package progetto_lpo.parser.ast;
+
+import static java.util.Objects.requireNonNull;
+
+import progetto_lpo.visitors.Visitor;
+
+// fused statement 'var = var[index:]', built by 'Fuse' for a resolved variable
+public final class DictDeleteStmt implements Stmt {
+	private final Variable var;
+	private final Exp index;
+
+	public DictDeleteStmt(Variable var, Exp index) {
+		this.var = requireNonNull(var);
+		this.index = requireNonNull(index);
+	}
+
+	public Variable getVar() {
+		return var;
+	}
+
+	public Exp getIndex() {
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s(%s,%s)", getClass().getSimpleName(), var, index);
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitDictDeleteStmt(var, index);
+	}
+}
@@ -0,0 +1,30 @@
+package progetto_lpo.parser.ast;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import progetto_lpo.visitors.Visitor;
+
+// dict with constant keys and any number of entries, built by the optimizer from chains of dict literal updates
+public final class DictLit implements Exp {
+	private final SortedMap<Integer, Exp> entries;
+
+	public DictLit(SortedMap<Integer, Exp> entries) {
+		this.entries = Collections.unmodifiableSortedMap(new TreeMap<>(entries));
+	}
+
+	public SortedMap<Integer, Exp> getEntries() {
+		return entries;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + entries;
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitDictLit(entries);
+	}
+}
@@ -3,10 +3,11 @@ import progetto_lpo.visitors.Visitor;
 
 
 // Rappresenta un aggiornamento a un dizionario, come dict[key:value] dove in dict la chiave key viene aggiornata al valore value
-public class DictUpdate implements Exp {
+public final class DictUpdate implements Exp {
     private final Exp dict;
     private final Exp index;
     private final Exp value;
+    private final InlineCache cache = new InlineCache(); // updates of this node
 
     public DictUpdate(Exp dict, Exp index, Exp value) {
         this.dict = dict;
@@ -14,12 +15,29 @@ public class DictUpdate implements Exp {
         this.value = value;
     }
 
-    @Override
-    public <T> T accept(Visitor<T> visitor) {
-        return visitor.visitDictUpdate(dict, index, value);
+    public Exp getDict() {
+        return dict;
     }
 
+    public Exp getIndex() {
+        return index;
+    }
 
-}
+    public Exp getValue() {
+        return value;
+    }
 
+    public InlineCache getCache() {
+        return cache;
+    }
 
+    @Override
+    public <T> T accept(Visitor<T> visitor) {
+        return visitor.visitDictUpdate(dict, index, value, cache);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%s,%s,%s)", getClass().getSimpleName(), dict, index, value);
+    }
+}
@@ -0,0 +1,40 @@
+package progetto_lpo.parser.ast;
+
+import static java.util.Objects.requireNonNull;
+
+import progetto_lpo.visitors.Visitor;
+
+// fused statement 'var = var[index:value]', built by 'Fuse' for a resolved variable
+public final class DictUpdateStmt implements Stmt {
+	private final Variable var;
+	private final Exp index;
+	private final Exp value;
+
+	public DictUpdateStmt(Variable var, Exp index, Exp value) {
+		this.var = requireNonNull(var);
+		this.index = requireNonNull(index);
+		this.value = requireNonNull(value);
+	}
+
+	public Variable getVar() {
+		return var;
+	}
+
+	public Exp getIndex() {
+		return index;
+	}
+
+	public Exp getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s(%s,%s,%s)", getClass().getSimpleName(), var, index, value);
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitDictUpdateStmt(var, index, value);
+	}
+}
@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class Eq extends BinaryOp {
+public final class Eq extends BinaryOp {
 	public Eq(Exp left, Exp right) {
 		super(left, right);
 	}
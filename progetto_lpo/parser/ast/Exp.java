@@ -1,4 +1,6 @@
 package progetto_lpo.parser.ast;
 
-public interface Exp extends AST {
+public sealed interface Exp extends AST
+		permits BinaryOp, UnaryOp, AtomicLiteral, Variable, Dict, DictLit, DictUpdate, DictDelete, DictAccess,
+		MemoExp {
 }
@@ -4,7 +4,7 @@ import static java.util.Objects.requireNonNull;
 
 import progetto_lpo.visitors.Visitor;
 
-public class ForStmt implements Stmt {
+public final class ForStmt implements Stmt {
 	private final Variable var;
 	private final Exp exp;
 	private final Block block;
@@ -15,6 +15,18 @@ public class ForStmt implements Stmt {
 		this.block = requireNonNull(block);
 	}
 
+	public Variable getVar() {
+		return var;
+	}
+
+	public Exp getExp() {
+		return exp;
+	}
+
+	public Block getBlock() {
+		return block;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "(" + var + "," + exp + "," + block + ")";
@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class Fst extends UnaryOp {
+public final class Fst extends UnaryOp {
 
 	public Fst(Exp exp) {
 		super(exp);
@@ -4,7 +4,7 @@ import static java.util.Objects.requireNonNull;
 
 import progetto_lpo.visitors.Visitor;
 
-public class IfStmt implements Stmt {
+public final class IfStmt implements Stmt {
 	private final Exp exp; // non-optional field
 	private final Block thenBlock; // non-optional field
 	private final Block elseBlock; // optional field
@@ -19,6 +19,18 @@ public class IfStmt implements Stmt {
 		this(exp, thenBlock, null);
 	}
 
+	public Exp getExp() {
+		return exp;
+	}
+
+	public Block getThenBlock() {
+		return thenBlock;
+	}
+
+	public Block getElseBlock() { // null if there is no else block
+		return elseBlock;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s,%s%s)", getClass().getSimpleName(), exp, thenBlock,
@@ -0,0 +1,34 @@
+package progetto_lpo.parser.ast;
+
+import static java.util.Objects.requireNonNull;
+
+import progetto_lpo.visitors.Visitor;
+
+// fused statement 'var = var + amount', built by 'Fuse' for a resolved variable
+public final class IncStmt implements Stmt {
+	private final Variable var;
+	private final int amount;
+
+	public IncStmt(Variable var, int amount) {
+		this.var = requireNonNull(var);
+		this.amount = amount;
+	}
+
+	public Variable getVar() {
+		return var;
+	}
+
+	public int getAmount() {
+		return amount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s(%s,%s)", getClass().getSimpleName(), var, amount);
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitIncStmt(var, amount);
+	}
+}
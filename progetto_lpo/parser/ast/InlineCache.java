@@ -0,0 +1,46 @@
+package progetto_lpo.parser.ast;
+
+import java.util.Objects;
+
+/*
+ * monomorphic inline cache of a dict operation, kept by its node: the last dict the operation was applied to, its
+ * key, its argument, if any, and its result; dicts are immutable values, hence the result can be reused as long as
+ * the operation is applied again to the same dict object, with the same key and an equal argument
+ *
+ * the engines fill and check the cache, dicts and values are opaque objects here; the counters tell whether the
+ * cache pays off
+ */
+public final class InlineCache {
+
+	private Object dict; // compared by identity, null if the cache is empty
+	private int key;
+	private Object argument; // compared by 'equals()'
+	private Object result;
+	private long hits;
+	private long misses;
+
+	// the cached result of the operation on 'dict' with 'key' and 'argument', null if it is not cached
+	public Object lookup(Object dict, int key, Object argument) {
+		if (dict == this.dict && dict != null && key == this.key && Objects.equals(argument, this.argument)) {
+			hits++;
+			return result;
+		}
+		misses++;
+		return null;
+	}
+
+	public void fill(Object dict, int key, Object argument, Object result) {
+		this.dict = dict;
+		this.key = key;
+		this.argument = argument;
+		this.result = result;
+	}
+
+	public long hits() {
+		return hits;
+	}
+
+	public long misses() {
+		return misses;
+	}
+}
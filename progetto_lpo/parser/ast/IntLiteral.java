@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class IntLiteral extends AtomicLiteral<Integer> {
+public final class IntLiteral extends AtomicLiteral<Integer> {
 
 	public IntLiteral(int n) {
 		super(n);
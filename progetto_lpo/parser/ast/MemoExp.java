@@ -0,0 +1,51 @@
+package progetto_lpo.parser.ast;
+
+import static java.util.Objects.requireNonNull;
+
+import progetto_lpo.visitors.Visitor;
+
+/*
+ * expression whose value is kept in the memo 'slot' of the engine, built by 'Memoize':
+ *
+ * - LAZY: 'exp' is evaluated the first time, then the memo is used until it is cleared by 'MemoForStmt'
+ * - STORE: 'exp' is evaluated and its value stored in the memo
+ * - LOAD: the value stored by an earlier STORE of the same statement is used, 'exp' is not evaluated
+ */
+public final class MemoExp implements Exp {
+
+	public enum Mode {
+		LAZY, STORE, LOAD
+	}
+
+	private final Exp exp;
+	private final int slot;
+	private final Mode mode;
+
+	public MemoExp(Exp exp, int slot, Mode mode) {
+		this.exp = requireNonNull(exp);
+		this.slot = slot;
+		this.mode = requireNonNull(mode);
+	}
+
+	public Exp getExp() {
+		return exp;
+	}
+
+	public int getSlot() {
+		return slot;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s(%s,%s,%s)", getClass().getSimpleName(), exp, slot, mode);
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitMemoExp(exp, slot, mode);
+	}
+}
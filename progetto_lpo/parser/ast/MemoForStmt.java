@@ -0,0 +1,56 @@
+package progetto_lpo.parser.ast;
+
+import static java.util.Objects.requireNonNull;
+
+import progetto_lpo.visitors.Visitor;
+
+/*
+ * for statement whose block has loop-invariant expressions memoized by 'Memoize' in the slots from 'firstMemo' to
+ * 'firstMemo + memoCount', excluded; the slots are cleared each time the loop starts
+ */
+public final class MemoForStmt implements Stmt {
+	private final Variable var;
+	private final Exp exp;
+	private final Block block;
+	private final int firstMemo;
+	private final int memoCount;
+
+	public MemoForStmt(Variable var, Exp exp, Block block, int firstMemo, int memoCount) {
+		this.var = requireNonNull(var);
+		this.exp = requireNonNull(exp);
+		this.block = requireNonNull(block);
+		this.firstMemo = firstMemo;
+		this.memoCount = memoCount;
+	}
+
+	public Variable getVar() {
+		return var;
+	}
+
+	public Exp getExp() {
+		return exp;
+	}
+
+	public Block getBlock() {
+		return block;
+	}
+
+	public int getFirstMemo() {
+		return firstMemo;
+	}
+
+	public int getMemoCount() {
+		return memoCount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s(%s,%s,%s,%s,%s)", getClass().getSimpleName(), var, exp, block, firstMemo,
+				memoCount);
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitMemoForStmt(var, exp, block, firstMemo, memoCount);
+	}
+}
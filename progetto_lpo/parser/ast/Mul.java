@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class Mul extends BinaryOp {
+public final class Mul extends BinaryOp {
 	public Mul(Exp left, Exp right) {
 		super(left, right);
 	}
@@ -4,13 +4,17 @@ import static java.util.Objects.requireNonNull;
 
 import progetto_lpo.visitors.Visitor;
 
-public class MyLangProg implements Prog {
+public final class MyLangProg implements Prog {
 	private final StmtSeq stmtSeq;
 
 	public MyLangProg(StmtSeq stmtSeq) {
 		this.stmtSeq = requireNonNull(stmtSeq);
 	}
 
+	public StmtSeq getStmtSeq() {
+		return stmtSeq;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s)", getClass().getSimpleName(), stmtSeq);
@@ -2,4 +2,10 @@ package progetto_lpo.parser.ast;
 
 public interface NamedEntity {
 	String name();
+
+	int id(); // dense identifier, the same for all the occurrences of the same name
+
+	int depth(); // nesting depth of the scope of the declaration, negative if not resolved
+
+	int slot(); // index of the variable among the ones declared in the same scope, negative if not resolved
 }
@@ -11,6 +11,14 @@ public abstract class NonEmptySeq<FT,RT> {
 		this.rest = requireNonNull(rest);
 	}
 
+	public FT getFirst() {
+		return first;
+	}
+
+	public RT getRest() {
+		return rest;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s,%s)", getClass().getSimpleName(), first, rest);
@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class Not extends UnaryOp {
+public final class Not extends UnaryOp {
 	public Not(Exp exp) {
 		super(exp);
 	}
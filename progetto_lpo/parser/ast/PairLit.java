@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class PairLit extends BinaryOp {
+public final class PairLit extends BinaryOp {
 	public PairLit(Exp left, Exp right) {
 		super(left, right);
 	}
@@ -0,0 +1,34 @@
+package progetto_lpo.parser.ast;
+
+import static java.util.Objects.requireNonNull;
+
+import progetto_lpo.visitors.Visitor;
+
+// fused statement 'print left == right', built by 'Fuse'
+public final class PrintEqStmt implements Stmt {
+	private final Exp left;
+	private final Exp right;
+
+	public PrintEqStmt(Exp left, Exp right) {
+		this.left = requireNonNull(left);
+		this.right = requireNonNull(right);
+	}
+
+	public Exp getLeft() {
+		return left;
+	}
+
+	public Exp getRight() {
+		return right;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s(%s,%s)", getClass().getSimpleName(), left, right);
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitPrintEqStmt(left, right);
+	}
+}
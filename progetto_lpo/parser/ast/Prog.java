@@ -1,4 +1,4 @@
 package progetto_lpo.parser.ast;
 
-public interface Prog extends AST {
+public sealed interface Prog extends AST permits MyLangProg {
 }
@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class Sign extends UnaryOp {
+public final class Sign extends UnaryOp {
 
 	public Sign(Exp exp) {
 		super(exp);
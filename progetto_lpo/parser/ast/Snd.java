@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class Snd extends UnaryOp {
+public final class Snd extends UnaryOp {
 
 	public Snd(Exp exp) {
 		super(exp);
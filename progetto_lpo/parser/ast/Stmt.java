@@ -1,4 +1,5 @@
 package progetto_lpo.parser.ast;
 
-public interface Stmt extends AST {
+public sealed interface Stmt extends AST permits AbstractAssignStmt, PrintStmt, IfStmt, Block, ForStmt,
+		IncStmt, DictUpdateStmt, DictDeleteStmt, PrintEqStmt, MemoForStmt {
 }
@@ -1,4 +1,4 @@
 package progetto_lpo.parser.ast;
 
-public interface StmtSeq extends AST {
+public sealed interface StmtSeq extends AST permits EmptyStmtSeq, NonEmptyStmtSeq, ArrayStmtSeq {
 }
@@ -2,13 +2,17 @@ package progetto_lpo.parser.ast;
 
 import static java.util.Objects.requireNonNull;
 
-public abstract class UnaryOp implements Exp {
+public abstract sealed class UnaryOp implements Exp permits Sign, Not, Fst, Snd {
 	protected final Exp exp;
 
 	protected UnaryOp(Exp exp) {
 		this.exp = requireNonNull(exp);
 	}
 
+	public Exp getExp() {
+		return exp;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s)", getClass().getSimpleName(), exp);
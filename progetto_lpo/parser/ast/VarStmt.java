@@ -2,7 +2,7 @@ package progetto_lpo.parser.ast;
 
 import progetto_lpo.visitors.Visitor;
 
-public class VarStmt extends AbstractAssignStmt {
+public final class VarStmt extends AbstractAssignStmt {
 
 	public VarStmt(Variable var, Exp exp) {
 		super(var, exp);
@@ -4,12 +4,30 @@ import static java.util.Objects.requireNonNull;
 
 import progetto_lpo.visitors.Visitor;
 
-public record Variable(String name) implements NamedEntity, Exp {
+/*
+ * variables are interned by 'SymbolTable', hence all the occurrences of the same identifier share the same object
+ *
+ * the resolution pass replaces each occurrence with a copy annotated with the lexical address of the declaration it
+ * refers to: the nesting depth of the scope of the declaration and the slot of the variable in that scope; the
+ * copies are interned as well, all the declarations at the same address share the same copy
+ */
+public record Variable(String name, int id, int depth, int slot) implements NamedEntity, Exp {
+
+	public static final int UNRESOLVED = -1; // depth and slot of variables with no lexical address
 
 	public Variable {
 		requireNonNull(name);
 	}
 
+	public Variable(String name, int id) {
+		this(name, id, UNRESOLVED, UNRESOLVED);
+	}
+
+	// the same variable at the lexical address (depth, slot)
+	public Variable resolved(int depth, int slot) {
+		return new Variable(name, id, depth, slot);
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s)", getClass().getSimpleName(), name);
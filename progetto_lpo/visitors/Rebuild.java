@@ -0,0 +1,226 @@
+package progetto_lpo.visitors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import progetto_lpo.parser.ast.*;
+
+/*
+ * visitor building a copy of the visited AST, to be extended by the passes transforming programs, which override
+ * only the cases they change
+ *
+ * statements can be removed by returning null, they are skipped when sequences of statements are rebuilt
+ */
+public class Rebuild implements Visitor<AST> {
+
+	protected Exp rebuild(Exp exp) {
+		return (Exp) exp.accept(this);
+	}
+
+	protected Block rebuild(Block block) {
+		return (Block) block.accept(this);
+	}
+
+	protected StmtSeq rebuild(StmtSeq stmtSeq) {
+		return (StmtSeq) stmtSeq.accept(this);
+	}
+
+	// programs
+
+	@Override
+	public Prog visitMyLangProg(StmtSeq stmtSeq) {
+		return new MyLangProg(rebuild(stmtSeq));
+	}
+
+	// statements
+
+	@Override
+	public Stmt visitAssignStmt(Variable var, Exp exp) {
+		return new AssignStmt(var, rebuild(exp));
+	}
+
+	@Override
+	public Stmt visitPrintStmt(Exp exp) {
+		return new PrintStmt(rebuild(exp));
+	}
+
+	@Override
+	public Stmt visitVarStmt(Variable var, Exp exp) {
+		return new VarStmt(var, rebuild(exp));
+	}
+
+	@Override
+	public Stmt visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		return new IfStmt(rebuild(exp), rebuild(thenBlock), elseBlock != null ? rebuild(elseBlock) : null);
+	}
+
+	@Override
+	public Block visitBlock(StmtSeq stmtSeq) {
+		return new Block(rebuild(stmtSeq));
+	}
+
+	@Override
+	public Stmt visitForStmt(Variable var, Exp exp, Block block) {
+		return new ForStmt(var, rebuild(exp), rebuild(block));
+	}
+
+	// fused statements and memoized loops are copied as they are
+
+	@Override
+	public Stmt visitIncStmt(Variable var, int amount) {
+		return new IncStmt(var, amount);
+	}
+
+	@Override
+	public Stmt visitDictUpdateStmt(Variable var, Exp index, Exp value) {
+		return new DictUpdateStmt(var, rebuild(index), rebuild(value));
+	}
+
+	@Override
+	public Stmt visitDictDeleteStmt(Variable var, Exp index) {
+		return new DictDeleteStmt(var, rebuild(index));
+	}
+
+	@Override
+	public Stmt visitPrintEqStmt(Exp left, Exp right) {
+		return new PrintEqStmt(rebuild(left), rebuild(right));
+	}
+
+	@Override
+	public Stmt visitMemoForStmt(Variable var, Exp exp, Block block, int firstMemo, int memoCount) {
+		return new MemoForStmt(var, rebuild(exp), rebuild(block), firstMemo, memoCount);
+	}
+
+	// sequences of statements
+
+	@Override
+	public StmtSeq visitEmptyStmtSeq() {
+		return new EmptyStmtSeq();
+	}
+
+	@Override
+	public StmtSeq visitNonEmptyStmtSeq(Stmt first, StmtSeq rest) {
+		final var stmt = (Stmt) first.accept(this);
+		final var newRest = rebuild(rest);
+		return stmt != null ? new NonEmptyStmtSeq(stmt, newRest) : newRest;
+	}
+
+	@Override
+	public StmtSeq visitArrayStmtSeq(List<Stmt> stmts) {
+		final var newStmts = new ArrayList<Stmt>(stmts.size());
+		for (var stmt : stmts) {
+			final var newStmt = (Stmt) stmt.accept(this);
+			if (newStmt != null)
+				newStmts.add(newStmt);
+		}
+		return new ArrayStmtSeq(newStmts);
+	}
+
+	// expressions
+
+	@Override
+	public Exp visitAdd(Exp left, Exp right) {
+		return new Add(rebuild(left), rebuild(right));
+	}
+
+	@Override
+	public Exp visitIntLiteral(int value) {
+		return new IntLiteral(value);
+	}
+
+	@Override
+	public Exp visitMul(Exp left, Exp right) {
+		return new Mul(rebuild(left), rebuild(right));
+	}
+
+	@Override
+	public Exp visitSign(Exp exp) {
+		return new Sign(rebuild(exp));
+	}
+
+	@Override
+	public Exp visitVariable(Variable var) {
+		return var;
+	}
+
+	@Override
+	public Exp visitNot(Exp exp) {
+		return new Not(rebuild(exp));
+	}
+
+	@Override
+	public Exp visitAnd(Exp left, Exp right) {
+		return new And(rebuild(left), rebuild(right));
+	}
+
+	@Override
+	public Exp visitBoolLiteral(boolean value) {
+		return new BoolLiteral(value);
+	}
+
+	@Override
+	public Exp visitEq(Exp left, Exp right) {
+		return new Eq(rebuild(left), rebuild(right));
+	}
+
+	@Override
+	public Exp visitPairLit(Exp left, Exp right) {
+		return new PairLit(rebuild(left), rebuild(right));
+	}
+
+	@Override
+	public Exp visitFst(Exp exp) {
+		return new Fst(rebuild(exp));
+	}
+
+	@Override
+	public Exp visitSnd(Exp exp) {
+		return new Snd(rebuild(exp));
+	}
+
+	@Override
+	public Exp visitDict(Exp key, Exp value) {
+		return new Dict(rebuild(key), rebuild(value));
+	}
+
+	@Override
+	public Exp visitDictLit(SortedMap<Integer, Exp> entries) {
+		final var newEntries = new TreeMap<Integer, Exp>();
+		entries.forEach((key, value) -> newEntries.put(key, rebuild(value)));
+		return new DictLit(newEntries);
+	}
+
+	@Override
+	public Exp visitDictUpdate(Exp dict, Exp exp, Exp value) {
+		return new DictUpdate(rebuild(dict), rebuild(exp), rebuild(value));
+	}
+
+	@Override
+	public Exp visitDictDelete(Exp dict, Exp index) {
+		return new DictDelete(rebuild(dict), rebuild(index));
+	}
+
+	@Override
+	public Exp visitDictAccess(Exp dict, Exp index) {
+		return new DictAccess(rebuild(dict), rebuild(index));
+	}
+
+	// the rebuilt dict operations have a new, empty inline cache
+
+	@Override
+	public Exp visitDictAccess(Exp dict, Exp index, InlineCache cache) {
+		return visitDictAccess(dict, index);
+	}
+
+	@Override
+	public Exp visitDictUpdate(Exp dict, Exp index, Exp value, InlineCache cache) {
+		return visitDictUpdate(dict, index, value);
+	}
+
+	@Override
+	public Exp visitMemoExp(Exp exp, int slot, MemoExp.Mode mode) {
+		return new MemoExp(rebuild(exp), slot, mode);
+	}
+}
@@ -1,7 +1,17 @@
 package progetto_lpo.visitors;
 
+import java.util.List;
+import java.util.SortedMap;
+
+import progetto_lpo.parser.ast.Add;
 import progetto_lpo.parser.ast.Block;
+import progetto_lpo.parser.ast.DictDelete;
+import progetto_lpo.parser.ast.DictUpdate;
+import progetto_lpo.parser.ast.Eq;
 import progetto_lpo.parser.ast.Exp;
+import progetto_lpo.parser.ast.InlineCache;
+import progetto_lpo.parser.ast.IntLiteral;
+import progetto_lpo.parser.ast.MemoExp;
 import progetto_lpo.parser.ast.Stmt;
 import progetto_lpo.parser.ast.StmtSeq;
 import progetto_lpo.parser.ast.Variable;
@@ -17,6 +27,8 @@ public interface Visitor<T> {
 
 	T visitNonEmptyStmtSeq(Stmt first, StmtSeq rest);
 
+	T visitArrayStmtSeq(List<Stmt> stmts);
+
 	T visitMul(Exp left, Exp right);
 
 	T visitPrintStmt(Exp exp);
@@ -51,9 +63,58 @@ public interface Visitor<T> {
 
 	T visitDict(Exp key, Exp value);
 
+	T visitDictLit(SortedMap<Integer, Exp> entries);
+
 	T visitDictUpdate(Exp dict, Exp exp, Exp value);
 
 	T visitDictDelete(Exp dict, Exp index);
 
 	T visitDictAccess(Exp dict, Exp index);
+
+	/*
+	 * fused statements, built by 'Fuse' for the engines with a fast path for them; the other visitors see them as
+	 * the statements they replace
+	 */
+
+	default T visitIncStmt(Variable var, int amount) {
+		return visitAssignStmt(var, new Add(var, new IntLiteral(amount)));
+	}
+
+	default T visitDictUpdateStmt(Variable var, Exp index, Exp value) {
+		return visitAssignStmt(var, new DictUpdate(var, index, value));
+	}
+
+	default T visitDictDeleteStmt(Variable var, Exp index) {
+		return visitAssignStmt(var, new DictDelete(var, index));
+	}
+
+	default T visitPrintEqStmt(Exp left, Exp right) {
+		return visitPrintStmt(new Eq(left, right));
+	}
+
+	/*
+	 * dict lookups and updates with the inline cache of their node, for the engines using it; the other visitors
+	 * ignore the cache
+	 */
+
+	default T visitDictAccess(Exp dict, Exp index, InlineCache cache) {
+		return visitDictAccess(dict, index);
+	}
+
+	default T visitDictUpdate(Exp dict, Exp index, Exp value, InlineCache cache) {
+		return visitDictUpdate(dict, index, value);
+	}
+
+	/*
+	 * memoized expressions and loops, built by 'Memoize' for the engines keeping memos; the other visitors see
+	 * them as the expressions and loops they wrap
+	 */
+
+	default T visitMemoExp(Exp exp, int slot, MemoExp.Mode mode) {
+		return exp.accept(this);
+	}
+
+	default T visitMemoForStmt(Variable var, Exp exp, Block block, int firstMemo, int memoCount) {
+		return visitForStmt(var, exp, block);
+	}
 }
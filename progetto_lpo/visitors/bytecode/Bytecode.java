@@ -0,0 +1,15 @@
+package progetto_lpo.visitors.bytecode;
+
+import static java.util.Objects.requireNonNull;
+
+/*
+ * compiled program: the instructions in 'code' refer to the values and variables in 'constants' by index;
+ * 'maxLocals' and 'maxStack' are the sizes of the local slots and of the operand stack needed to run it
+ */
+public record Bytecode(int[] code, Object[] constants, int maxLocals, int maxStack) {
+
+	public Bytecode {
+		requireNonNull(code);
+		requireNonNull(constants);
+	}
+}
@@ -0,0 +1,369 @@
+package progetto_lpo.visitors.bytecode;
+
+import static progetto_lpo.visitors.bytecode.Opcodes.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SortedMap;
+
+import progetto_lpo.parser.ast.Block;
+import progetto_lpo.parser.ast.BoolLiteral;
+import progetto_lpo.parser.ast.Exp;
+import progetto_lpo.parser.ast.IntLiteral;
+import progetto_lpo.parser.ast.Prog;
+import progetto_lpo.parser.ast.Stmt;
+import progetto_lpo.parser.ast.StmtSeq;
+import progetto_lpo.parser.ast.Variable;
+import progetto_lpo.visitors.Visitor;
+import progetto_lpo.visitors.execution.BoolValue;
+import progetto_lpo.visitors.execution.IntValue;
+import progetto_lpo.visitors.resolution.Locals;
+import progetto_lpo.visitors.resolution.Resolve;
+
+/*
+ * compiler from resolved programs to bytecode, no value returned by the visitor
+ *
+ * the scopes are flattened into a single array of local slots by 'Locals'
+ *
+ * the instructions are emitted in the same evaluation order as 'Execute', so that dynamic errors are the same
+ */
+public class Compile implements Visitor<Void> {
+
+	private int[] code = new int[64];
+	private int length; // number of ints in 'code'
+	private final List<Object> constants = new ArrayList<>();
+	private final HashMap<Object, Integer> constantIndexes = new HashMap<>();
+	private final Locals locals = new Locals();
+	private int stackSize; // size of the operand stack at the current instruction
+	private int maxStack;
+
+	// compiles 'prog' after resolving its variables
+	public static Bytecode compile(Prog prog) {
+		final var compiler = new Compile();
+		prog.accept(new Resolve()).accept(compiler);
+		return compiler.bytecode();
+	}
+
+	public Bytecode bytecode() {
+		return new Bytecode(Arrays.copyOf(code, length), constants.toArray(), locals.size(), maxStack);
+	}
+
+	private void emit(int value) {
+		if (length == code.length)
+			code = Arrays.copyOf(code, length * 2);
+		code[length++] = value;
+	}
+
+	// emits 'opcode', which changes the size of the operand stack by 'stackEffect'
+	private void emit(int opcode, int stackEffect) {
+		emit(opcode);
+		stackSize += stackEffect;
+		maxStack = Math.max(maxStack, stackSize);
+	}
+
+	// emits a jump whose target is set later by 'patch()'; returns the position of the target
+	private int emitJump(int opcode, int stackEffect) {
+		emit(opcode, stackEffect);
+		emit(-1);
+		return length - 1;
+	}
+
+	// sets the target of the jump at 'position' to the next instruction
+	private void patch(int position) {
+		code[position] = length;
+	}
+
+	private int constant(Object value) {
+		return constantIndexes.computeIfAbsent(value, v -> {
+			constants.add(v);
+			return constants.size() - 1;
+		});
+	}
+
+	// whether the evaluation of 'exp' never fails
+	private static boolean isSafe(Exp exp) {
+		return exp instanceof IntLiteral || exp instanceof BoolLiteral
+				|| exp instanceof Variable var && var.depth() != Variable.UNRESOLVED;
+	}
+
+	// evaluates the operands of '+' and '*', the left one is checked first, as 'Execute' does
+	private void compileIntOp(Exp left, Exp right, int opcode) {
+		left.accept(this);
+		if (!isSafe(right))
+			emit(CHECK_INT, 0);
+		right.accept(this);
+		emit(opcode, -1);
+	}
+
+	// programs
+
+	@Override
+	public Void visitMyLangProg(StmtSeq stmtSeq) {
+		stmtSeq.accept(this);
+		emit(HALT, 0);
+		return null;
+	}
+
+	// statements
+
+	@Override
+	public Void visitAssignStmt(Variable var, Exp exp) {
+		exp.accept(this);
+		if (var.depth() == Variable.UNRESOLVED) {
+			emit(UNDECLARED, -1);
+			emit(constant(var));
+		} else {
+			emit(STORE, -1);
+			emit(locals.local(var));
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitPrintStmt(Exp exp) {
+		exp.accept(this);
+		emit(PRINT, -1);
+		return null;
+	}
+
+	@Override
+	public Void visitVarStmt(Variable var, Exp exp) {
+		exp.accept(this);
+		if (var.depth() == Variable.UNRESOLVED) {
+			emit(REDECLARED, -1);
+			emit(constant(var));
+		} else {
+			final var local = locals.declare(var);
+			emit(STORE, -1);
+			emit(local);
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		exp.accept(this);
+		final var toElse = emitJump(JUMP_IF_FALSE, -1);
+		thenBlock.accept(this);
+		if (elseBlock == null)
+			patch(toElse);
+		else {
+			final var toEnd = emitJump(JUMP, 0);
+			patch(toElse);
+			elseBlock.accept(this);
+			patch(toEnd);
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitBlock(StmtSeq stmtSeq) {
+		locals.enterScope();
+		stmtSeq.accept(this);
+		locals.exitScope();
+		return null;
+	}
+
+	// the dict and the iterator over its entries are kept on the operand stack while the block is executed
+	@Override
+	public Void visitForStmt(Variable var, Exp exp, Block block) {
+		exp.accept(this);
+		emit(FOR_INIT, 1);
+		final var loop = length;
+		locals.enterScope();
+		emit(FOR_NEXT, 0);
+		emit(locals.declare(var));
+		final var toEnd = length;
+		emit(-1);
+		block.accept(this);
+		locals.exitScope();
+		emit(JUMP, 0);
+		emit(loop);
+		patch(toEnd);
+		stackSize -= 2;
+		return null;
+	}
+
+	// sequences of statements
+
+	@Override
+	public Void visitEmptyStmtSeq() {
+		return null;
+	}
+
+	@Override
+	public Void visitNonEmptyStmtSeq(Stmt first, StmtSeq rest) {
+		first.accept(this);
+		rest.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitArrayStmtSeq(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			stmt.accept(this);
+		return null;
+	}
+
+	// expressions
+
+	@Override
+	public Void visitAdd(Exp left, Exp right) {
+		compileIntOp(left, right, ADD);
+		return null;
+	}
+
+	@Override
+	public Void visitIntLiteral(int value) {
+		emit(CONST, 1);
+		emit(constant(IntValue.of(value)));
+		return null;
+	}
+
+	@Override
+	public Void visitMul(Exp left, Exp right) {
+		compileIntOp(left, right, MUL);
+		return null;
+	}
+
+	@Override
+	public Void visitSign(Exp exp) {
+		exp.accept(this);
+		emit(SIGN, 0);
+		return null;
+	}
+
+	@Override
+	public Void visitVariable(Variable var) {
+		if (var.depth() == Variable.UNRESOLVED) {
+			emit(UNDECLARED, 1); // the stack effect of the failed load, to keep the size consistent
+			emit(constant(var));
+		} else {
+			emit(LOAD, 1);
+			emit(locals.local(var));
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitNot(Exp exp) {
+		exp.accept(this);
+		emit(NOT, 0);
+		return null;
+	}
+
+	// short-circuit evaluation, both operands are checked to be booleans
+	@Override
+	public Void visitAnd(Exp left, Exp right) {
+		left.accept(this);
+		final var leftFalse = emitJump(JUMP_IF_FALSE, -1);
+		right.accept(this);
+		final var rightFalse = emitJump(JUMP_IF_FALSE, -1);
+		emit(CONST, 1);
+		emit(constant(BoolValue.TRUE));
+		final var toEnd = emitJump(JUMP, -1);
+		patch(leftFalse);
+		patch(rightFalse);
+		emit(CONST, 1);
+		emit(constant(BoolValue.FALSE));
+		patch(toEnd);
+		return null;
+	}
+
+	@Override
+	public Void visitBoolLiteral(boolean value) {
+		emit(CONST, 1);
+		emit(constant(BoolValue.of(value)));
+		return null;
+	}
+
+	@Override
+	public Void visitEq(Exp left, Exp right) {
+		left.accept(this);
+		right.accept(this);
+		emit(EQ, -1);
+		return null;
+	}
+
+	@Override
+	public Void visitPairLit(Exp left, Exp right) {
+		left.accept(this);
+		right.accept(this);
+		emit(PAIR, -1);
+		return null;
+	}
+
+	@Override
+	public Void visitFst(Exp exp) {
+		exp.accept(this);
+		emit(FST, 0);
+		return null;
+	}
+
+	@Override
+	public Void visitSnd(Exp exp) {
+		exp.accept(this);
+		emit(SND, 0);
+		return null;
+	}
+
+	// dicts; operands are converted as soon as they are evaluated, as 'Execute' does, unless the rest never fails
+
+	@Override
+	public Void visitDict(Exp key, Exp value) {
+		key.accept(this);
+		if (!isSafe(value))
+			emit(CHECK_INT, 0);
+		value.accept(this);
+		emit(DICT, -1);
+		return null;
+	}
+
+	// the entries are added in key order to the empty dict
+	@Override
+	public Void visitDictLit(SortedMap<Integer, Exp> entries) {
+		emit(DICT_LIT, 1);
+		entries.forEach((key, value) -> {
+			emit(CONST, 1);
+			emit(constant(IntValue.of(key)));
+			value.accept(this);
+			emit(DICT_UPDATE, -2);
+		});
+		return null;
+	}
+
+	@Override
+	public Void visitDictUpdate(Exp dict, Exp exp, Exp value) {
+		dict.accept(this);
+		if (!isSafe(exp) || !isSafe(value))
+			emit(CHECK_DICT, 0);
+		exp.accept(this);
+		if (!isSafe(value))
+			emit(CHECK_INT, 0);
+		value.accept(this);
+		emit(DICT_UPDATE, -2);
+		return null;
+	}
+
+	@Override
+	public Void visitDictDelete(Exp dict, Exp index) {
+		dict.accept(this);
+		if (!isSafe(index))
+			emit(CHECK_DICT, 0);
+		index.accept(this);
+		emit(DICT_DELETE, -1);
+		return null;
+	}
+
+	@Override
+	public Void visitDictAccess(Exp dict, Exp index) {
+		dict.accept(this);
+		if (!isSafe(index))
+			emit(CHECK_DICT, 0);
+		index.accept(this);
+		emit(DICT_ACCESS, -1);
+		return null;
+	}
+}
@@ -0,0 +1,38 @@
+package progetto_lpo.visitors.bytecode;
+
+/*
+ * opcodes of the bytecode; operands follow the opcode in the code array, the effect on the operand stack is shown as
+ * [before -> after]
+ */
+final class Opcodes {
+	static final int HALT = 0; // stops the execution
+	static final int CONST = 1; // CONST k: [-> constants[k]]
+	static final int LOAD = 2; // LOAD i: [-> locals[i]]
+	static final int STORE = 3; // STORE i: [v ->], locals[i] = v
+	static final int UNDECLARED = 4; // UNDECLARED k: throws the error for the undeclared variable constants[k]
+	static final int REDECLARED = 5; // REDECLARED k: throws the error for the already declared variable constants[k]
+	static final int ADD = 6; // [i1 i2 -> i1+i2]
+	static final int MUL = 7; // [i1 i2 -> i1*i2]
+	static final int SIGN = 8; // [i -> -i]
+	static final int NOT = 9; // [b -> !b]
+	static final int EQ = 10; // [v1 v2 -> v1==v2]
+	static final int PAIR = 11; // [v1 v2 -> (v1,v2)]
+	static final int FST = 12; // [p -> fst p]
+	static final int SND = 13; // [p -> snd p]
+	static final int CHECK_INT = 14; // [i -> i], fails if the value is not an integer
+	static final int JUMP = 15; // JUMP t: pc = t
+	static final int JUMP_IF_FALSE = 16; // JUMP_IF_FALSE t: [b ->], pc = t if b is false
+	static final int PRINT = 17; // [v ->], prints v
+	// the iterator 'it' over the entries of the dict 'd' of a for loop is kept on the stack, above 'd'
+	static final int FOR_INIT = 18; // [d -> d it]
+	static final int FOR_NEXT = 19; // FOR_NEXT i t: locals[i] = next entry of it if any, otherwise [d it ->], pc = t
+	static final int DICT = 20; // [k v -> d]
+	static final int DICT_UPDATE = 21; // [d k v -> d']
+	static final int DICT_DELETE = 22; // [d k -> d']
+	static final int DICT_ACCESS = 23; // [d k -> v]
+	static final int DICT_LIT = 24; // [-> d], the empty dict
+	static final int CHECK_DICT = 25; // [d -> d], fails if the value is not a dict
+
+	private Opcodes() {
+	}
+}
@@ -0,0 +1,211 @@
+package progetto_lpo.visitors.bytecode;
+
+import static java.util.Objects.requireNonNull;
+import static progetto_lpo.visitors.bytecode.Opcodes.*;
+
+import java.io.PrintWriter;
+import java.util.Iterator;
+
+import progetto_lpo.environments.EnvironmentException;
+import progetto_lpo.visitors.execution.BoolValue;
+import progetto_lpo.visitors.execution.DictValue;
+import progetto_lpo.visitors.execution.IntValue;
+import progetto_lpo.visitors.execution.InterpreterException;
+import progetto_lpo.visitors.execution.PairValue;
+import progetto_lpo.visitors.execution.Value;
+
+/*
+ * stack-based virtual machine running the bytecode built by 'Compile'; it has the same dynamic semantics as
+ * 'Execute', dynamic errors are thrown as 'InterpreterException'
+ *
+ * integers and booleans are not boxed: each slot of the operand stack and of the locals is a pair of entries with
+ * the same index in an 'int' array and in an 'Object' array; the latter holds the tag INT or BOOL if the slot
+ * contains an integer or a boolean, stored in the former, otherwise it holds the value itself; values are boxed
+ * only when they are printed, compared with other values or stored in pairs and dicts, and when a dynamic error is
+ * reported
+ */
+public class VM {
+
+	// tags of the slots containing integers and booleans
+	private static final Object INT = new Object();
+	private static final Object BOOL = new Object();
+
+	private final PrintWriter printWriter; // output stream used to print values
+
+	public VM(PrintWriter printWriter) {
+		this.printWriter = requireNonNull(printWriter);
+	}
+
+	// the value in the slot (ref, n)
+	private static Value box(Object ref, int n) {
+		if (ref == INT)
+			return IntValue.of(n);
+		if (ref == BOOL)
+			return BoolValue.of(n != 0);
+		return (Value) ref;
+	}
+
+	// the tag or the value to be stored in the object entry of a slot containing 'value'
+	private static Object refOf(Value value) {
+		if (value instanceof IntValue)
+			return INT;
+		if (value instanceof BoolValue)
+			return BOOL;
+		return value;
+	}
+
+	// the entry to be stored in the 'int' array of a slot containing 'value'
+	private static int intOf(Value value) {
+		if (value instanceof IntValue)
+			return value.toInt();
+		if (value instanceof BoolValue)
+			return value.toBool() ? 1 : 0;
+		return 0;
+	}
+
+	// the integer in the slot (ref, n), the conversion of the boxed value fails if it is not an integer
+	private static int toInt(Object ref, int n) {
+		return ref == INT ? n : box(ref, n).toInt();
+	}
+
+	// the boolean in the slot (ref, n), the conversion of the boxed value fails if it is not a boolean
+	private static boolean toBool(Object ref, int n) {
+		return ref == BOOL ? n != 0 : box(ref, n).toBool();
+	}
+
+	// the same equality as the one of the boxed values
+	private static boolean equal(Object ref1, int n1, Object ref2, int n2) {
+		if ((ref1 == INT || ref1 == BOOL) && (ref2 == INT || ref2 == BOOL))
+			return ref1 == ref2 && n1 == n2;
+		return box(ref1, n1).equals(box(ref2, n2));
+	}
+
+	public void run(Bytecode bytecode) {
+		final var code = bytecode.code();
+		final var constants = bytecode.constants();
+		final var constRefs = new Object[constants.length];
+		final var constInts = new int[constants.length];
+		for (var i = 0; i < constants.length; i++)
+			if (constants[i] instanceof Value value) {
+				constRefs[i] = refOf(value);
+				constInts[i] = intOf(value);
+			}
+		final var localRefs = new Object[bytecode.maxLocals()];
+		final var localInts = new int[bytecode.maxLocals()];
+		final var refs = new Object[bytecode.maxStack()];
+		final var ints = new int[bytecode.maxStack()];
+		var sp = 0; // number of slots on the operand stack
+		var pc = 0;
+		try {
+			while (true) {
+				switch (code[pc++]) {
+				case HALT -> {
+					return;
+				}
+				case CONST -> {
+					final var k = code[pc++];
+					refs[sp] = constRefs[k];
+					ints[sp++] = constInts[k];
+				}
+				case LOAD -> {
+					final var i = code[pc++];
+					refs[sp] = localRefs[i];
+					ints[sp++] = localInts[i];
+				}
+				case STORE -> {
+					final var i = code[pc++];
+					localRefs[i] = refs[--sp];
+					localInts[i] = ints[sp];
+				}
+				case UNDECLARED -> throw new EnvironmentException("Undeclared " + constants[code[pc]]);
+				case REDECLARED -> throw new EnvironmentException(constants[code[pc]] + " already declared");
+				case ADD -> {
+					sp--;
+					ints[sp - 1] = toInt(refs[sp - 1], ints[sp - 1]) + toInt(refs[sp], ints[sp]);
+					refs[sp - 1] = INT;
+				}
+				case MUL -> {
+					sp--;
+					ints[sp - 1] = toInt(refs[sp - 1], ints[sp - 1]) * toInt(refs[sp], ints[sp]);
+					refs[sp - 1] = INT;
+				}
+				case SIGN -> {
+					ints[sp - 1] = -toInt(refs[sp - 1], ints[sp - 1]);
+					refs[sp - 1] = INT;
+				}
+				case NOT -> {
+					ints[sp - 1] = toBool(refs[sp - 1], ints[sp - 1]) ? 0 : 1;
+					refs[sp - 1] = BOOL;
+				}
+				case EQ -> {
+					sp--;
+					ints[sp - 1] = equal(refs[sp - 1], ints[sp - 1], refs[sp], ints[sp]) ? 1 : 0;
+					refs[sp - 1] = BOOL;
+				}
+				case PAIR -> {
+					sp--;
+					refs[sp - 1] = new PairValue(box(refs[sp - 1], ints[sp - 1]), box(refs[sp], ints[sp]));
+				}
+				case FST, SND -> {
+					final var pair = box(refs[sp - 1], ints[sp - 1]).toPair();
+					final var value = code[pc - 1] == FST ? pair.getFstVal() : pair.getSndVal();
+					refs[sp - 1] = refOf(value);
+					ints[sp - 1] = intOf(value);
+				}
+				case CHECK_INT -> toInt(refs[sp - 1], ints[sp - 1]);
+				case JUMP -> pc = code[pc];
+				case JUMP_IF_FALSE -> {
+					sp--;
+					pc = toBool(refs[sp], ints[sp]) ? pc + 1 : code[pc];
+				}
+				case PRINT -> {
+					sp--;
+					printWriter.println(box(refs[sp], ints[sp]));
+				}
+				case FOR_INIT -> {
+					refs[sp] = box(refs[sp - 1], ints[sp - 1]).toDict().iterator();
+					sp++;
+				}
+				case FOR_NEXT -> {
+					final var entries = (Iterator<?>) refs[sp - 1];
+					if (entries.hasNext()) {
+						localRefs[code[pc]] = entries.next();
+						pc += 2;
+					} else {
+						sp -= 2;
+						pc = code[pc + 1];
+					}
+				}
+				case DICT -> {
+					sp--;
+					refs[sp - 1] = DictValue.of(toInt(refs[sp - 1], ints[sp - 1]), box(refs[sp], ints[sp]));
+				}
+				case DICT_UPDATE -> {
+					sp -= 2;
+					final var dict = box(refs[sp - 1], ints[sp - 1]).toDict();
+					refs[sp - 1] = dict.put(toInt(refs[sp], ints[sp]), box(refs[sp + 1], ints[sp + 1]));
+				}
+				case DICT_DELETE -> {
+					sp--;
+					final var dict = box(refs[sp - 1], ints[sp - 1]).toDict();
+					refs[sp - 1] = dict.remove(toInt(refs[sp], ints[sp]));
+				}
+				case DICT_ACCESS -> {
+					sp--;
+					final var dict = box(refs[sp - 1], ints[sp - 1]).toDict();
+					final var value = dict.get(toInt(refs[sp], ints[sp]));
+					refs[sp - 1] = refOf(value);
+					ints[sp - 1] = intOf(value);
+				}
+				case DICT_LIT -> refs[sp++] = DictValue.EMPTY;
+				case CHECK_DICT -> box(refs[sp - 1], ints[sp - 1]).toDict();
+				default -> throw new IllegalStateException("Unknown opcode " + code[pc - 1]);
+				}
+			}
+		} catch (EnvironmentException e) {
+			throw new InterpreterException(e);
+		} finally {
+			printWriter.flush();
+		}
+	}
+}
@@ -0,0 +1,7 @@
+package progetto_lpo.visitors.closures;
+
+/* compiled statement */
+@FunctionalInterface
+public non-sealed interface Action extends Closure {
+	void run(Frame frame);
+}
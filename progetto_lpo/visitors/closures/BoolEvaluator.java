@@ -0,0 +1,7 @@
+package progetto_lpo.visitors.closures;
+
+/* compiled expression with an unboxed boolean result */
+@FunctionalInterface
+public non-sealed interface BoolEvaluator extends Evaluator {
+	boolean eval(Frame frame);
+}
@@ -0,0 +1,5 @@
+package progetto_lpo.visitors.closures;
+
+/* code built by 'CompileClosures': actions for statements and evaluators for expressions */
+public sealed interface Closure permits Action, Evaluator {
+}
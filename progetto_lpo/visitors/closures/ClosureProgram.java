@@ -0,0 +1,28 @@
+package progetto_lpo.visitors.closures;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.PrintWriter;
+
+import progetto_lpo.environments.EnvironmentException;
+import progetto_lpo.visitors.execution.InterpreterException;
+import progetto_lpo.visitors.execution.Value;
+
+/* program compiled by 'CompileClosures', 'frameSize' is the number of its locals; its expressions are not memoized */
+public record ClosureProgram(Action body, int frameSize) {
+
+	public ClosureProgram {
+		requireNonNull(body);
+	}
+
+	// runs the program printing on 'out'; dynamic errors are thrown as 'InterpreterException', as 'Execute' does
+	public void run(PrintWriter out) {
+		try {
+			body.run(new Frame(frameSize, new Value[0], requireNonNull(out)));
+		} catch (EnvironmentException e) {
+			throw new InterpreterException(e);
+		} finally {
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,537 @@
+package progetto_lpo.visitors.closures;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+
+import progetto_lpo.environments.EnvironmentException;
+import progetto_lpo.parser.ast.Block;
+import progetto_lpo.parser.ast.Exp;
+import progetto_lpo.parser.ast.InlineCache;
+import progetto_lpo.parser.ast.MemoExp;
+import progetto_lpo.parser.ast.Prog;
+import progetto_lpo.parser.ast.Stmt;
+import progetto_lpo.parser.ast.StmtSeq;
+import progetto_lpo.parser.ast.Variable;
+import progetto_lpo.visitors.Visitor;
+import progetto_lpo.visitors.execution.BoolValue;
+import progetto_lpo.visitors.execution.DictValue;
+import progetto_lpo.visitors.execution.DynamicEnv;
+import progetto_lpo.visitors.execution.IntValue;
+import progetto_lpo.visitors.execution.PairValue;
+import progetto_lpo.visitors.execution.Value;
+import progetto_lpo.visitors.resolution.Locals;
+import progetto_lpo.visitors.resolution.Resolve;
+
+/*
+ * compiler from resolved programs to trees of closures, each node is compiled once and its children are linked
+ * directly; integer and boolean expressions are compiled into evaluators with unboxed results, values are boxed
+ * only when they are printed, compared with other values or stored in pairs and dicts
+ *
+ * an evaluator of a different kind is adapted to the one needed by its parent with the conversions of 'Value',
+ * hence the dynamic errors and their order are the same as for 'Execute'
+ *
+ * if the program was typechecked, variables are stored unboxed when their initialization expression is an integer
+ * or a boolean one, since their type cannot change; otherwise all variables are boxed
+ *
+ * the loops compiled by tiering come from the program prepared by 'Execute', hence the fused statements, the
+ * memoized expressions and the inline caches of dict operations are compiled as 'Execute' runs them: dicts owned
+ * by a variable are updated in place, and the memos are those of the interpreter
+ */
+public class CompileClosures implements Visitor<Closure> {
+
+	// representation of the value of each local
+	private enum Kind {
+		INT, BOOL, VALUE
+	}
+
+	private final boolean typed; // whether the program was typechecked
+	private final Locals locals = new Locals();
+	private Kind[] kinds = new Kind[16]; // kind of the locals of the variables declared so far
+
+	public CompileClosures(boolean typed) {
+		this.typed = typed;
+	}
+
+	// compiles 'prog' after resolving its variables; 'typed' tells whether it was typechecked
+	public static ClosureProgram compile(Prog prog, boolean typed) {
+		final var compiler = new CompileClosures(typed);
+		final var body = (Action) prog.accept(new Resolve()).accept(compiler);
+		return new ClosureProgram(body, compiler.locals.size());
+	}
+
+	/*
+	 * compiles the block of a resolved for statement whose loop variable is 'var', to run its iterations in 'env'
+	 * in place of the interpreter; the variables of the scopes enclosing the loop are boxed, their locals follow the
+	 * layout of the arrays of 'env'
+	 */
+	public static CompiledLoop compileLoop(Variable var, Block block, DynamicEnv env, boolean typed) {
+		final var compiler = new CompileClosures(typed);
+		final var sizes = new int[env.depth() + 1];
+		for (var depth = 0; depth < sizes.length; depth++) {
+			if (depth > 0)
+				compiler.locals.enterScope();
+			sizes[depth] = env.frame(depth).length;
+			compiler.locals.reserve(sizes[depth]);
+		}
+		final var reserved = compiler.locals.size();
+		compiler.kinds = Arrays.copyOf(compiler.kinds, Math.max(reserved, compiler.kinds.length));
+		Arrays.fill(compiler.kinds, 0, reserved, Kind.VALUE);
+		compiler.locals.enterScope();
+		final var local = compiler.declare(var, Kind.VALUE);
+		final var body = compiler.action(block);
+		compiler.locals.exitScope();
+		return new CompiledLoop(body, sizes, local, compiler.locals.size());
+	}
+
+	private Action action(Stmt stmt) {
+		return (Action) stmt.accept(this);
+	}
+
+	private Evaluator eval(Exp exp) {
+		return (Evaluator) exp.accept(this);
+	}
+
+	// adapts 'eval' to an evaluator with an integer result
+	private static IntEvaluator asInt(Evaluator eval) {
+		return switch (eval) {
+		case IntEvaluator e -> e;
+		case BoolEvaluator e -> frame -> BoolValue.of(e.eval(frame)).toInt();
+		case ValueEvaluator e -> frame -> e.eval(frame).toInt();
+		};
+	}
+
+	// adapts 'eval' to an evaluator with a boolean result
+	private static BoolEvaluator asBool(Evaluator eval) {
+		return switch (eval) {
+		case IntEvaluator e -> frame -> IntValue.of(e.eval(frame)).toBool();
+		case BoolEvaluator e -> e;
+		case ValueEvaluator e -> frame -> e.eval(frame).toBool();
+		};
+	}
+
+	// adapts 'eval' to an evaluator with a boxed result
+	private static ValueEvaluator box(Evaluator eval) {
+		return switch (eval) {
+		case IntEvaluator e -> frame -> IntValue.of(e.eval(frame));
+		case BoolEvaluator e -> frame -> BoolValue.of(e.eval(frame));
+		case ValueEvaluator e -> e;
+		};
+	}
+
+	private IntEvaluator intEval(Exp exp) {
+		return asInt(eval(exp));
+	}
+
+	private BoolEvaluator boolEval(Exp exp) {
+		return asBool(eval(exp));
+	}
+
+	private ValueEvaluator valueEval(Exp exp) {
+		return box(eval(exp));
+	}
+
+	private Kind kindOf(Evaluator eval) {
+		if (!typed)
+			return Kind.VALUE;
+		return switch (eval) {
+		case IntEvaluator e -> Kind.INT;
+		case BoolEvaluator e -> Kind.BOOL;
+		case ValueEvaluator e -> Kind.VALUE;
+		};
+	}
+
+	// stores the result of 'eval' into 'local', represented as 'kind'
+	private static Action store(int local, Kind kind, Evaluator eval) {
+		return switch (kind) {
+		case INT -> {
+			final var e = asInt(eval);
+			yield frame -> frame.ints[local] = e.eval(frame);
+		}
+		case BOOL -> {
+			final var e = asBool(eval);
+			yield frame -> frame.ints[local] = e.eval(frame) ? 1 : 0;
+		}
+		case VALUE -> {
+			final var e = box(eval);
+			yield frame -> frame.values[local] = e.eval(frame);
+		}
+		};
+	}
+
+	// declares the resolved variable 'var' with a local represented as 'kind'
+	private int declare(Variable var, Kind kind) {
+		final var local = locals.declare(var);
+		if (local >= kinds.length)
+			kinds = Arrays.copyOf(kinds, Math.max(local + 1, kinds.length * 2));
+		kinds[local] = kind;
+		return local;
+	}
+
+	private static Action sequence(List<Action> actions) {
+		if (actions.size() == 1)
+			return actions.get(0);
+		final var array = actions.toArray(Action[]::new);
+		return frame -> {
+			for (var action : array)
+				action.run(frame);
+		};
+	}
+
+	// programs
+
+	@Override
+	public Action visitMyLangProg(StmtSeq stmtSeq) {
+		return (Action) stmtSeq.accept(this);
+	}
+
+	// statements
+
+	// undeclared variables are reported after the evaluation of 'exp', as 'Execute' does
+	@Override
+	public Action visitAssignStmt(Variable var, Exp exp) {
+		if (var.depth() == Variable.UNRESOLVED) {
+			final var e = eval(exp);
+			return frame -> {
+				box(e).eval(frame);
+				throw new EnvironmentException("Undeclared " + var);
+			};
+		}
+		final var local = locals.local(var);
+		return store(local, kinds[local], eval(exp));
+	}
+
+	@Override
+	public Action visitPrintStmt(Exp exp) {
+		return switch (eval(exp)) {
+		case IntEvaluator e -> frame -> frame.out.println(e.eval(frame));
+		case BoolEvaluator e -> frame -> frame.out.println(e.eval(frame));
+		case ValueEvaluator e -> frame -> frame.out.println(e.eval(frame));
+		};
+	}
+
+	@Override
+	public Action visitVarStmt(Variable var, Exp exp) {
+		if (var.depth() == Variable.UNRESOLVED) {
+			final var e = eval(exp);
+			return frame -> {
+				box(e).eval(frame);
+				throw new EnvironmentException(var + " already declared");
+			};
+		}
+		final var e = eval(exp);
+		final var kind = kindOf(e);
+		return store(declare(var, kind), kind, e);
+	}
+
+	@Override
+	public Action visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		final var cond = boolEval(exp);
+		final var thenAction = action(thenBlock);
+		if (elseBlock == null)
+			return frame -> {
+				if (cond.eval(frame))
+					thenAction.run(frame);
+			};
+		final var elseAction = action(elseBlock);
+		return frame -> {
+			if (cond.eval(frame))
+				thenAction.run(frame);
+			else
+				elseAction.run(frame);
+		};
+	}
+
+	@Override
+	public Action visitBlock(StmtSeq stmtSeq) {
+		locals.enterScope();
+		final var action = (Action) stmtSeq.accept(this);
+		locals.exitScope();
+		return action;
+	}
+
+	/*
+	 * the loop variable is declared in a scope enclosing the block, as in 'Resolve'; dicts are iterated in key order,
+	 * the variable is bound to the pairs of their entries, as in 'Execute'
+	 */
+	@Override
+	public Action visitForStmt(Variable var, Exp exp, Block block) {
+		final var bound = valueEval(exp);
+		locals.enterScope();
+		final var local = declare(var, Kind.VALUE);
+		final var body = action(block);
+		locals.exitScope();
+		return frame -> {
+			for (var entry : bound.eval(frame).toDict()) {
+				frame.values[local] = entry;
+				body.run(frame);
+			}
+		};
+	}
+
+	// the slots of the expressions memoized in the loop are cleared each time it starts
+	@Override
+	public Action visitMemoForStmt(Variable var, Exp exp, Block block, int firstMemo, int memoCount) {
+		final var loop = visitForStmt(var, exp, block);
+		return frame -> {
+			Arrays.fill(frame.memos, firstMemo, firstMemo + memoCount, null);
+			loop.run(frame);
+		};
+	}
+
+	// fused statements, built by 'Fuse'; their variables are resolved
+
+	@Override
+	public Action visitIncStmt(Variable var, int amount) {
+		final var local = locals.local(var);
+		if (kinds[local] == Kind.INT)
+			return frame -> frame.ints[local] += amount;
+		return frame -> frame.values[local] = IntValue.of(frame.values[local].toInt() + amount);
+	}
+
+	// the variable owns the result, as in 'Execute'; a dict is never unboxed
+
+	@Override
+	public Action visitDictUpdateStmt(Variable var, Exp index, Exp value) {
+		final var local = locals.local(var);
+		final var k = intEval(index);
+		final var v = valueEval(value);
+		return frame -> {
+			final var dict = frame.values[local].toDict();
+			final var key = k.eval(frame);
+			frame.values[local] = dict.putOwned(key, v.eval(frame));
+		};
+	}
+
+	@Override
+	public Action visitDictDeleteStmt(Variable var, Exp index) {
+		final var local = locals.local(var);
+		final var k = intEval(index);
+		return frame -> {
+			final var dict = frame.values[local].toDict();
+			frame.values[local] = dict.removeOwned(k.eval(frame));
+		};
+	}
+
+	// sequences of statements
+
+	@Override
+	public Action visitEmptyStmtSeq() {
+		return frame -> {
+		};
+	}
+
+	@Override
+	public Action visitNonEmptyStmtSeq(Stmt first, StmtSeq rest) {
+		final var firstAction = action(first);
+		final var restAction = (Action) rest.accept(this);
+		return frame -> {
+			firstAction.run(frame);
+			restAction.run(frame);
+		};
+	}
+
+	@Override
+	public Action visitArrayStmtSeq(List<Stmt> stmts) {
+		if (stmts.isEmpty())
+			return visitEmptyStmtSeq();
+		return sequence(stmts.stream().map(this::action).toList());
+	}
+
+	// expressions
+
+	@Override
+	public IntEvaluator visitAdd(Exp left, Exp right) {
+		final var l = intEval(left);
+		final var r = intEval(right);
+		return frame -> l.eval(frame) + r.eval(frame);
+	}
+
+	@Override
+	public IntEvaluator visitIntLiteral(int value) {
+		return frame -> value;
+	}
+
+	@Override
+	public IntEvaluator visitMul(Exp left, Exp right) {
+		final var l = intEval(left);
+		final var r = intEval(right);
+		return frame -> l.eval(frame) * r.eval(frame);
+	}
+
+	@Override
+	public IntEvaluator visitSign(Exp exp) {
+		final var e = intEval(exp);
+		return frame -> -e.eval(frame);
+	}
+
+	// the value may be copied elsewhere, hence a dict is no longer owned by the variable, as in 'Execute'
+	@Override
+	public Evaluator visitVariable(Variable var) {
+		if (var.depth() == Variable.UNRESOLVED)
+			return (ValueEvaluator) frame -> {
+				throw new EnvironmentException("Undeclared " + var);
+			};
+		final var local = locals.local(var);
+		return switch (kinds[local]) {
+		case INT -> (IntEvaluator) frame -> frame.ints[local];
+		case BOOL -> (BoolEvaluator) frame -> frame.ints[local] != 0;
+		case VALUE -> (ValueEvaluator) frame -> DictValue.shared(frame.values[local]);
+		};
+	}
+
+	@Override
+	public BoolEvaluator visitNot(Exp exp) {
+		final var e = boolEval(exp);
+		return frame -> !e.eval(frame);
+	}
+
+	@Override
+	public BoolEvaluator visitAnd(Exp left, Exp right) {
+		final var l = boolEval(left);
+		final var r = boolEval(right);
+		return frame -> l.eval(frame) && r.eval(frame);
+	}
+
+	@Override
+	public BoolEvaluator visitBoolLiteral(boolean value) {
+		return frame -> value;
+	}
+
+	// values of different kinds are compared boxed
+	@Override
+	public BoolEvaluator visitEq(Exp left, Exp right) {
+		final var l = eval(left);
+		final var r = eval(right);
+		if (l instanceof IntEvaluator li && r instanceof IntEvaluator ri)
+			return frame -> li.eval(frame) == ri.eval(frame);
+		if (l instanceof BoolEvaluator lb && r instanceof BoolEvaluator rb)
+			return frame -> lb.eval(frame) == rb.eval(frame);
+		final var lv = box(l);
+		final var rv = box(r);
+		return frame -> lv.eval(frame).equals(rv.eval(frame));
+	}
+
+	@Override
+	public ValueEvaluator visitPairLit(Exp left, Exp right) {
+		final var l = valueEval(left);
+		final var r = valueEval(right);
+		return frame -> new PairValue(l.eval(frame), r.eval(frame));
+	}
+
+	@Override
+	public ValueEvaluator visitFst(Exp exp) {
+		final var e = valueEval(exp);
+		return frame -> e.eval(frame).toPair().getFstVal();
+	}
+
+	@Override
+	public ValueEvaluator visitSnd(Exp exp) {
+		final var e = valueEval(exp);
+		return frame -> e.eval(frame).toPair().getSndVal();
+	}
+
+	@Override
+	public ValueEvaluator visitMemoExp(Exp exp, int slot, MemoExp.Mode mode) {
+		if (mode == MemoExp.Mode.LOAD)
+			return frame -> frame.memos[slot];
+		final var e = valueEval(exp);
+		if (mode == MemoExp.Mode.STORE)
+			return frame -> frame.memos[slot] = e.eval(frame);
+		return frame -> {
+			final var value = frame.memos[slot];
+			return value != null ? value : (frame.memos[slot] = e.eval(frame));
+		};
+	}
+
+	// dicts are evaluated first, then keys and, for updates, values, as in 'Execute'
+
+	@Override
+	public ValueEvaluator visitDict(Exp key, Exp value) {
+		final var k = intEval(key);
+		final var v = valueEval(value);
+		return frame -> DictValue.of(k.eval(frame), v.eval(frame));
+	}
+
+	@Override
+	public ValueEvaluator visitDictLit(SortedMap<Integer, Exp> entries) {
+		final var keys = entries.keySet().stream().mapToInt(Integer::intValue).toArray();
+		final var values = entries.values().stream().map(this::valueEval).toArray(ValueEvaluator[]::new);
+		return frame -> {
+			var dict = DictValue.EMPTY;
+			for (var i = 0; i < keys.length; i++)
+				dict = dict.put(keys[i], values[i].eval(frame));
+			return dict;
+		};
+	}
+
+	@Override
+	public ValueEvaluator visitDictUpdate(Exp dict, Exp exp, Exp value) {
+		final var d = valueEval(dict);
+		final var k = intEval(exp);
+		final var v = valueEval(value);
+		return frame -> d.eval(frame).toDict().put(k.eval(frame), v.eval(frame));
+	}
+
+	@Override
+	public ValueEvaluator visitDictDelete(Exp dict, Exp index) {
+		final var d = valueEval(dict);
+		final var k = intEval(index);
+		return frame -> d.eval(frame).toDict().remove(k.eval(frame));
+	}
+
+	// a lookup does not copy its dict, which stays owned if read from a variable
+	private ValueEvaluator lookupDict(Exp dict) {
+		if (dict instanceof Variable var && var.depth() != Variable.UNRESOLVED) {
+			final var local = locals.local(var);
+			if (kinds[local] == Kind.VALUE)
+				return frame -> frame.values[local];
+		}
+		return valueEval(dict);
+	}
+
+	@Override
+	public ValueEvaluator visitDictAccess(Exp dict, Exp index) {
+		final var d = lookupDict(dict);
+		final var k = intEval(index);
+		return frame -> d.eval(frame).toDict().get(k.eval(frame));
+	}
+
+	// the inline cache of the node is checked first, dicts are immutable unless owned, and owned ones are not cached
+
+	@Override
+	public ValueEvaluator visitDictAccess(Exp dict, Exp index, InlineCache cache) {
+		final var d = lookupDict(dict);
+		final var k = intEval(index);
+		return frame -> {
+			final var dv = d.eval(frame).toDict();
+			final var key = k.eval(frame);
+			if (dv.isOwned())
+				return dv.get(key);
+			final var cached = cache.lookup(dv, key, null);
+			if (cached != null)
+				return (Value) cached;
+			final var result = dv.get(key);
+			cache.fill(dv, key, null, result);
+			return result;
+		};
+	}
+
+	@Override
+	public ValueEvaluator visitDictUpdate(Exp dict, Exp index, Exp value, InlineCache cache) {
+		final var d = valueEval(dict);
+		final var k = intEval(index);
+		final var v = valueEval(value);
+		return frame -> {
+			final var dv = d.eval(frame).toDict();
+			final var key = k.eval(frame);
+			final var val = v.eval(frame);
+			final var cached = cache.lookup(dv, key, val);
+			if (cached != null)
+				return (Value) cached;
+			final var result = dv.put(key, val);
+			cache.fill(dv, key, val, result);
+			return result;
+		};
+	}
+}
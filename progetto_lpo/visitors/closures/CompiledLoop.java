@@ -0,0 +1,73 @@
+package progetto_lpo.visitors.closures;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.PrintWriter;
+import java.util.Iterator;
+
+import progetto_lpo.visitors.execution.DynamicEnv;
+import progetto_lpo.visitors.execution.PairValue;
+import progetto_lpo.visitors.execution.Value;
+
+/*
+ * block of a for statement compiled by 'CompileClosures.compileLoop()', run by the interpreter in place of the
+ * remaining iterations of the loop; the variables of the enclosing scopes are copied from the environment into the
+ * frame before the iterations, and back after them, while the memos are those of the interpreter
+ */
+public final class CompiledLoop {
+
+	private final Action body;
+	private final int[] sizes; // length of the arrays of the enclosing scopes when the loop was compiled
+	private final int local; // local of the loop variable
+	private final int frameSize;
+
+	CompiledLoop(Action body, int[] sizes, int local, int frameSize) {
+		this.body = requireNonNull(body);
+		this.sizes = requireNonNull(sizes);
+		this.local = local;
+		this.frameSize = frameSize;
+	}
+
+	// whether the loop can run in 'env', that is, its enclosing scopes have the layout the loop was compiled for
+	public boolean fits(DynamicEnv env) {
+		if (env.depth() + 1 != sizes.length)
+			return false;
+		for (var depth = 0; depth < sizes.length; depth++)
+			if (env.frame(depth).length != sizes[depth])
+				return false;
+		return true;
+	}
+
+	// runs the iterations over 'entries' in 'env', which the loop must fit, with 'memos', and returns their number
+	public long run(DynamicEnv env, Value[] memos, Iterator<PairValue> entries, PrintWriter out) {
+		final var frame = enter(env, requireNonNull(memos), out);
+		var iterations = 0L;
+		while (entries.hasNext()) {
+			frame.values[local] = entries.next();
+			body.run(frame);
+			iterations++;
+		}
+		exit(frame, env);
+		return iterations;
+	}
+
+	// the frame of the loop, with the variables of the enclosing scopes copied from 'env'
+	private Frame enter(DynamicEnv env, Value[] memos, PrintWriter out) {
+		final var frame = new Frame(frameSize, memos, requireNonNull(out));
+		var base = 0;
+		for (var depth = 0; depth < sizes.length; depth++) {
+			System.arraycopy(env.frame(depth), 0, frame.values, base, sizes[depth]);
+			base += sizes[depth];
+		}
+		return frame;
+	}
+
+	// copies the variables of the enclosing scopes back from 'frame' to 'env'
+	private void exit(Frame frame, DynamicEnv env) {
+		var base = 0;
+		for (var depth = 0; depth < sizes.length; depth++) {
+			System.arraycopy(frame.values, base, env.frame(depth), 0, sizes[depth]);
+			base += sizes[depth];
+		}
+	}
+}
@@ -0,0 +1,5 @@
+package progetto_lpo.visitors.closures;
+
+/* compiled expression, the kind of evaluator determines how its result is represented */
+public sealed interface Evaluator extends Closure permits IntEvaluator, BoolEvaluator, ValueEvaluator {
+}
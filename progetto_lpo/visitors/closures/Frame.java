@@ -0,0 +1,24 @@
+package progetto_lpo.visitors.closures;
+
+import java.io.PrintWriter;
+
+import progetto_lpo.visitors.execution.Value;
+
+/*
+ * state of a running compiled program: the locals, indexed as computed by 'Locals', the memos of the expressions
+ * memoized by 'Memoize' and the output stream; unboxed integers and booleans are stored in 'ints', booleans as 0 or
+ * 1, boxed values in 'values'
+ */
+public final class Frame {
+	final int[] ints;
+	final Value[] values;
+	final Value[] memos;
+	final PrintWriter out;
+
+	Frame(int size, Value[] memos, PrintWriter out) {
+		ints = new int[size];
+		values = new Value[size];
+		this.memos = memos;
+		this.out = out;
+	}
+}
@@ -0,0 +1,7 @@
+package progetto_lpo.visitors.closures;
+
+/* compiled expression with an unboxed integer result */
+@FunctionalInterface
+public non-sealed interface IntEvaluator extends Evaluator {
+	int eval(Frame frame);
+}
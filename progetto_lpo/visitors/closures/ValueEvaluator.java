@@ -0,0 +1,9 @@
+package progetto_lpo.visitors.closures;
+
+import progetto_lpo.visitors.execution.Value;
+
+/* compiled expression with a boxed result */
+@FunctionalInterface
+public non-sealed interface ValueEvaluator extends Evaluator {
+	Value eval(Frame frame);
+}
@@ -1,9 +1,22 @@
 package progetto_lpo.visitors.execution;
 
-public class BoolValue extends AtomicValue<Boolean> {
+/*
+ * there are exactly two boolean values, hence they can be compared by identity; equality and hash codes are the ones
+ * of the boxed 'Boolean' they used to wrap
+ */
+public final class BoolValue implements Value {
 
-	public BoolValue(Boolean value) {
-		super(value);
+	public static final BoolValue TRUE = new BoolValue(true);
+	public static final BoolValue FALSE = new BoolValue(false);
+
+	private final boolean value;
+
+	private BoolValue(boolean value) {
+		this.value = value;
+	}
+
+	public static BoolValue of(boolean value) {
+		return value ? TRUE : FALSE;
 	}
 
 	@Override
@@ -11,4 +24,13 @@ public class BoolValue extends AtomicValue<Boolean> {
 		return value;
 	}
 
+	@Override
+	public int hashCode() {
+		return Boolean.hashCode(value);
+	}
+
+	@Override
+	public String toString() {
+		return Boolean.toString(value);
+	}
 }
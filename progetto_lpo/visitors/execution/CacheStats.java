@@ -0,0 +1,47 @@
+package progetto_lpo.visitors.execution;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import progetto_lpo.parser.ast.DictAccess;
+import progetto_lpo.parser.ast.DictUpdate;
+import progetto_lpo.parser.ast.Exp;
+import progetto_lpo.parser.ast.InlineCache;
+import progetto_lpo.parser.ast.StmtSeq;
+import progetto_lpo.visitors.Rebuild;
+
+/*
+ * collects the inline caches of the dict operations of a program, in program order, and prints their counters; the
+ * program is traversed by rebuilding it, the copy is discarded
+ */
+class CacheStats extends Rebuild {
+
+	private final Map<InlineCache, String> sites = new LinkedHashMap<>(); // description of the node of each cache
+
+	@Override
+	public Exp visitDictAccess(Exp dict, Exp index, InlineCache cache) {
+		sites.put(cache, new DictAccess(dict, index).toString());
+		return super.visitDictAccess(dict, index, cache);
+	}
+
+	@Override
+	public Exp visitDictUpdate(Exp dict, Exp index, Exp value, InlineCache cache) {
+		sites.put(cache, new DictUpdate(dict, index, value).toString());
+		return super.visitDictUpdate(dict, index, value, cache);
+	}
+
+	// prints the counters of the inline caches of 'stmtSeq', the executed program
+	static void print(StmtSeq stmtSeq, PrintStream out) {
+		final var stats = new CacheStats();
+		stmtSeq.accept(stats);
+		long hits = 0, misses = 0;
+		for (var cache : stats.sites.keySet()) {
+			hits += cache.hits();
+			misses += cache.misses();
+		}
+		out.printf("dict caches: %d sites, %d hits, %d misses%n", stats.sites.size(), hits, misses);
+		stats.sites.forEach((cache, site) -> out.printf("  %s: %d hits, %d misses%n", site, cache.hits(),
+				cache.misses()));
+	}
+}
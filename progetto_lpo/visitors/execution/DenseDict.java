@@ -0,0 +1,244 @@
+package progetto_lpo.visitors.execution;
+
+import static java.util.Objects.requireNonNull;
+
+/*
+ * dict whose keys cover most of the range between the least and the greatest one: the value of a key is stored in
+ * the slot 'key - origin' of a persistent trie of arrays of WIDTH entries, missing keys have null slots; an update
+ * copies only the path from the root to the slot, in O(log n) with base WIDTH, and no key is stored
+ *
+ * an update stays dense as long as the range of the keys is at most twice the number of entries, otherwise the dict
+ * is promoted to a tree; a deletion demotes it to a tree only if the range becomes more than SPARSE times the number
+ * of entries, so that an update and a deletion cannot switch the representation back and forth, and to a small
+ * dict if at most SMALL_MAX entries are left
+ *
+ * the origin is set below the least key when the trie is built, so that keys can be added below it too; it is built
+ * again when a key falls below the origin or when the unused slots below the least key are too many
+ *
+ * each node has an extra slot OWNER with the token of the owned dict which built it, if any: the updates of that
+ * dict change the node in place
+ */
+final class DenseDict extends DictValue {
+
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+	private static final int SPARSE = 4;
+	private static final int OWNER = WIDTH; // slot of the token of the owner of a node
+
+	private Object[] root; // inner nodes hold the children, leaves hold the values
+	private int shift; // BITS times the number of inner levels
+	private final int origin; // key of slot 0
+	private int low; // least key
+	private int high; // greatest key
+	private int size;
+
+	private DenseDict(Object[] root, int shift, int origin, int low, int high, int size, int hash) {
+		this.root = root;
+		this.shift = shift;
+		this.origin = origin;
+		this.low = low;
+		this.high = high;
+		this.size = size;
+		this.hash = hash;
+	}
+
+	// whether 'size' keys ranging from 'low' to 'high' are dense enough to be stored in a trie
+	static boolean isDense(int low, int high, int size) {
+		return (long) high - low + 1 <= 2L * size;
+	}
+
+	// the dict with the entries 'keys[i]:values[i]', where the keys are sorted and dense
+	static DenseDict of(int[] keys, Value[] values) {
+		final var n = keys.length;
+		final var origin = (int) Math.max((long) keys[0] - n, Integer.MIN_VALUE);
+		var shift = 0;
+		while ((long) keys[n - 1] - origin >= 1L << (shift + BITS))
+			shift += BITS;
+		final var root = new Object[WIDTH + 1];
+		var hash = 0;
+		for (var i = 0; i < n; i++) {
+			final var slot = keys[i] - origin;
+			var node = root;
+			for (var s = shift; s > 0; s -= BITS) {
+				final var index = (slot >>> s) & MASK;
+				if (node[index] == null)
+					node[index] = new Object[WIDTH + 1];
+				node = (Object[]) node[index];
+			}
+			node[slot & MASK] = values[i];
+			hash += entryHash(keys[i], values[i]);
+		}
+		return new DenseDict(root, shift, origin, keys[0], keys[n - 1], n, hash);
+	}
+
+	// the leaf containing 'slot', null if it has no values
+	private Object[] leaf(int slot) {
+		var node = root;
+		for (var s = shift; s > 0 && node != null; s -= BITS)
+			node = (Object[]) node[(slot >>> s) & MASK];
+		return node;
+	}
+
+	// the value of 'key', null if it is not in the dict
+	private Value find(int key) {
+		if (key < low || key > high)
+			return null;
+		final var leaf = leaf(key - origin);
+		return leaf == null ? null : (Value) leaf[(key - origin) & MASK];
+	}
+
+	// a new node owned by 'owner'
+	private static Object[] node(Object owner) {
+		final var node = new Object[WIDTH + 1];
+		node[OWNER] = owner;
+		return node;
+	}
+
+	/*
+	 * the trie of 'node' with 'value' in 'slot': the nodes on the path owned by 'owner' are changed in place, the
+	 * others are copied, the missing ones are created
+	 */
+	private static Object[] set(Object[] node, int shift, int slot, Value value, Object owner) {
+		final Object[] target;
+		if (node == null)
+			target = node(owner);
+		else if (owner != null && node[OWNER] == owner)
+			target = node;
+		else {
+			target = node.clone();
+			target[OWNER] = owner;
+		}
+		final var index = (slot >>> shift) & MASK;
+		target[index] = shift == 0 ? value : set((Object[]) target[index], shift - BITS, slot, value, owner);
+		return target;
+	}
+
+	// this dict changed to the given trie and keys if it is owned by 'owner', otherwise a new dict
+	private DenseDict update(Object owner, Object[] root, int shift, int low, int high, int size, int hash) {
+		if (owner == null || owner != this.owner)
+			return new DenseDict(root, shift, origin, low, high, size, hash);
+		this.root = root;
+		this.shift = shift;
+		this.low = low;
+		this.high = high;
+		this.size = size;
+		this.hash = hash;
+		return this;
+	}
+
+	// the same entries, in a trie built again
+	private DictValue rebuild() {
+		final var keys = new int[size];
+		final var values = new Value[size];
+		var i = 0;
+		for (var cursor = cursor(); cursor.next(); i++) {
+			keys[i] = cursor.key;
+			values[i] = cursor.value;
+		}
+		return of(keys, values);
+	}
+
+	// the slots are scanned leaf by leaf, the missing leaves are skipped
+	@Override
+	Cursor cursor() {
+		return new Cursor() {
+			private int slot = low - origin; // slot of the next candidate entry
+			private int remaining = size;
+			private Object[] leaf;
+			private int leafBase = -1; // first slot of 'leaf'
+
+			@Override
+			boolean next() {
+				if (remaining == 0)
+					return false;
+				while (true) {
+					final var base = slot & ~MASK;
+					if (base != leafBase) {
+						leaf = leaf(slot);
+						leafBase = base;
+					}
+					if (leaf != null && leaf[slot & MASK] instanceof Value v) {
+						key = origin + slot++;
+						value = v;
+						remaining--;
+						return true;
+					}
+					slot = leaf == null ? base + WIDTH : slot + 1;
+				}
+			}
+		};
+	}
+
+	@Override
+	public Representation representation() {
+		return Representation.DENSE;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Value get(int key) {
+		final var value = find(key);
+		if (value == null)
+			throw missingKey(key);
+		return value;
+	}
+
+	@Override
+	DictValue put(int key, Value value, Object owner) {
+		requireNonNull(value);
+		if (key >= low && key <= high) {
+			final var old = find(key);
+			if (old == value)
+				return this;
+			return update(owner, set(root, shift, key - origin, value, owner), shift, low, high,
+					old == null ? size + 1 : size,
+					hash + entryHash(key, value) - (old == null ? 0 : entryHash(key, old)));
+		}
+		final var newLow = Math.min(low, key);
+		final var newHigh = Math.max(high, key);
+		if (!isDense(newLow, newHigh, size + 1) || key < origin)
+			return with(key, value); // a tree, or a dense dict with a lower origin
+		final var slot = key - origin;
+		var newRoot = root;
+		var newShift = shift;
+		while (slot >= 1L << (newShift + BITS)) { // the trie gets a new root level
+			final var node = node(owner);
+			node[0] = newRoot;
+			newRoot = node;
+			newShift += BITS;
+		}
+		return update(owner, set(newRoot, newShift, slot, value, owner), newShift, newLow, newHigh, size + 1,
+				hash + entryHash(key, value));
+	}
+
+	@Override
+	DictValue remove(int key, Object owner) {
+		final var old = find(key);
+		if (old == null)
+			throw missingKey(key);
+		if (size - 1 <= SMALL_MAX)
+			return without(key);
+		var newLow = low;
+		var newHigh = high;
+		if (key == low)
+			do
+				newLow++;
+			while (find(newLow) == null);
+		if (key == high)
+			do
+				newHigh--;
+			while (find(newHigh) == null);
+		if ((long) newHigh - newLow + 1 > (long) SPARSE * (size - 1))
+			return without(key);
+		final var removed = update(owner, set(root, shift, key - origin, null, owner), shift, newLow, newHigh,
+				size - 1, hash - entryHash(key, old));
+		if ((long) newLow - origin > (long) SPARSE * (size - 1)) // too many unused slots below the least key
+			return removed.rebuild();
+		return removed;
+	}
+}
@@ -1,5 +1,250 @@
 package progetto_lpo.visitors.execution;
 
-public class DictValue implements Value{
-    
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * dicts are persistent maps from integer keys to values: an update or a deletion builds a new dict, which shares
+ * most of its structure with the previous one, which stays valid; hence dicts have value semantics without being
+ * copied
+ *
+ * the representation depends on the keys, it is chosen again by each update and deletion which changes their shape:
+ * - 'SmallDict': at most SMALL_MAX entries, in two packed arrays sorted by key
+ * - 'DenseDict': keys covering most of a range, the values are indexed by key in a persistent trie
+ * - 'TreeDict': any other keys, in a persistent AVL tree
+ *
+ * all representations visit their entries in key order, without sorting
+ *
+ * a dict can also be owned by a variable which is its only reference, as after 'd = d[k:v]': then the updates of
+ * the variable change the nodes of the dict in place, see 'putOwned()'
+ */
+public abstract sealed class DictValue implements Value, Iterable<PairValue> permits SmallDict, DenseDict, TreeDict {
+
+	public enum Representation {
+		SMALL, DENSE, TREE
+	}
+
+	static final int SMALL_MAX = 8; // maximum number of entries of small dicts
+
+	public static final DictValue EMPTY = SmallDict.EMPTY;
+
+	// the dict with the single entry 'key:value'
+	public static DictValue of(int key, Value value) {
+		return EMPTY.put(key, value);
+	}
+
+	// the dict with the entries 'keys[i]:values[i]', where the keys are sorted, in the most compact representation
+	static DictValue of(int[] keys, Value[] values) {
+		if (keys.length <= SMALL_MAX)
+			return new SmallDict(keys, values);
+		if (DenseDict.isDense(keys[0], keys[keys.length - 1], keys.length))
+			return DenseDict.of(keys, values);
+		return TreeDict.of(keys, values);
+	}
+
+	/*
+	 * hash of the entry 'key:value'; the hash of a dict is the sum of the hashes of its entries, whatever their
+	 * order, hence each update and deletion maintains it in O(1)
+	 */
+	static int entryHash(int key, Value value) {
+		return key * 0x9E3779B9 ^ value.hashCode();
+	}
+
+	static InterpreterException missingKey(int key) {
+		return new InterpreterException("Missing key " + key);
+	}
+
+	// position in the entries of a dict, in key order; 'key' and 'value' are those of the current entry
+	abstract static class Cursor {
+		int key;
+		Value value;
+
+		// moves to the next entry, returns false if there are no more entries
+		abstract boolean next();
+	}
+
+	abstract Cursor cursor();
+
+	/*
+	 * token of the variable owning this dict, null if the dict may be shared; the nodes built by the updates of an
+	 * owned dict are marked with its token, and only the nodes with the token of the dict are changed in place,
+	 * hence the nodes shared with other dicts are still copied
+	 */
+	Object owner;
+
+	int hash; // sum of the hashes of the entries, set by the representations
+
+	// whether the dict is owned by a variable, hence it may be changed in place
+	public final boolean isOwned() {
+		return owner != null;
+	}
+
+	// the dict can be referenced elsewhere, it is never changed again
+	public final void share() {
+		owner = null;
+	}
+
+	// 'value', read from a variable and possibly copied elsewhere, hence its dict, if any, is no longer owned
+	public static Value shared(Value value) {
+		if (value instanceof DictValue dict)
+			dict.owner = null;
+		return value;
+	}
+
+	/*
+	 * the dict with 'key' mapped to 'value' or without 'key', for a variable which is the only reference to this
+	 * dict and is assigned the result: the dict is updated in place if it is owned, otherwise the result is a new
+	 * dict, which becomes owned; the result is this dict or a dict with a different representation
+	 */
+
+	public final DictValue putOwned(int key, Value value) {
+		final var token = owner != null ? owner : new Object();
+		return own(put(key, value, token), token);
+	}
+
+	public final DictValue removeOwned(int key) {
+		final var token = owner != null ? owner : new Object();
+		return own(remove(key, token), token);
+	}
+
+	// an unchanged dict which is not owned stays shared
+	private DictValue own(DictValue result, Object token) {
+		if (result != this)
+			result.owner = token;
+		return result;
+	}
+
+	public abstract Representation representation();
+
+	public abstract int size();
+
+	// the value of 'key', which must be in the dict
+	public abstract Value get(int key);
+
+	// the dict with 'key' mapped to 'value', this dict is unchanged
+	public final DictValue put(int key, Value value) {
+		return put(key, value, null);
+	}
+
+	// the dict without 'key', which must be in the dict; this dict is unchanged
+	public final DictValue remove(int key) {
+		return remove(key, null);
+	}
+
+	/*
+	 * 'put()' and 'remove()' changing in place the nodes with the token 'owner', and this dict if it has the same
+	 * token; the new nodes get the token, which is null for persistent updates
+	 */
+
+	abstract DictValue put(int key, Value value, Object owner);
+
+	abstract DictValue remove(int key, Object owner);
+
+	// the dict with the entries of this one and 'key:value', where 'key' is not in this dict
+	final DictValue with(int key, Value value) {
+		final var keys = new int[size() + 1];
+		final var values = new Value[keys.length];
+		var i = 0;
+		var inserted = false;
+		for (var cursor = cursor(); cursor.next();) {
+			if (!inserted && key < cursor.key) {
+				keys[i] = key;
+				values[i++] = value;
+				inserted = true;
+			}
+			keys[i] = cursor.key;
+			values[i++] = cursor.value;
+		}
+		if (!inserted) {
+			keys[i] = key;
+			values[i] = value;
+		}
+		return of(keys, values);
+	}
+
+	// the dict with the entries of this one but 'key', which is in this dict
+	final DictValue without(int key) {
+		final var keys = new int[size() - 1];
+		final var values = new Value[keys.length];
+		var i = 0;
+		for (var cursor = cursor(); cursor.next();)
+			if (cursor.key != key) {
+				keys[i] = cursor.key;
+				values[i++] = cursor.value;
+			}
+		return of(keys, values);
+	}
+
+	// the entries as (key,value) pairs, in key order
+	@Override
+	public final Iterator<PairValue> iterator() {
+		return entries(cursor(), false);
+	}
+
+	// the current entry of 'cursor', which was moved to it, and the following ones, as (key,value) pairs
+	static Iterator<PairValue> remaining(Cursor cursor) {
+		return entries(cursor, true);
+	}
+
+	private static Iterator<PairValue> entries(Cursor cursor, boolean current) {
+		return new Iterator<>() {
+			private boolean moved = current; // whether the cursor was moved to the entry returned by 'next()'
+			private boolean hasNext = current;
+
+			@Override
+			public boolean hasNext() {
+				if (!moved) {
+					hasNext = cursor.next();
+					moved = true;
+				}
+				return hasNext;
+			}
+
+			@Override
+			public PairValue next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				moved = false;
+				return new PairValue(IntValue.of(cursor.key), cursor.value);
+			}
+		};
+	}
+
+	@Override
+	public final DictValue toDict() {
+		return this;
+	}
+
+	@Override
+	public final String toString() {
+		final var sb = new StringBuilder("[");
+		for (var cursor = cursor(); cursor.next();) {
+			if (sb.length() > 1)
+				sb.append(',');
+			sb.append(cursor.key).append(':').append(cursor.value);
+		}
+		return sb.append(']').toString();
+	}
+
+	@Override
+	public final int hashCode() {
+		return hash;
+	}
+
+	/*
+	 * dicts with the same entries are equal, whatever their representation; the entries are compared only if the
+	 * sizes and the hashes are equal
+	 */
+	@Override
+	public final boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof DictValue dv) || size() != dv.size() || hash != dv.hash)
+			return false;
+		final var other = dv.cursor();
+		for (var cursor = cursor(); cursor.next();)
+			if (!other.next() || cursor.key != other.key || !cursor.value.equals(other.value))
+				return false;
+		return true;
+	}
 }
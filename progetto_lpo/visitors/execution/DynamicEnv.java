@@ -1,6 +1,91 @@
 package progetto_lpo.visitors.execution;
 
-import progetto_lpo.environments.GenEnvironment;
+import static java.util.Objects.requireNonNull;
 
-public class DynamicEnv extends GenEnvironment<Value> {
+import java.util.Arrays;
+
+import progetto_lpo.environments.Environment;
+import progetto_lpo.environments.EnvironmentException;
+import progetto_lpo.parser.ast.NamedEntity;
+
+/*
+ * environment for programs resolved by 'Resolve': each scope is an array of values indexed by slot, and the scope
+ * chain is indexed by depth, hence a variable is accessed with two array loads and no lookup
+ *
+ * arrays are reused by the scopes entered at the same depth, and cleared when their scope is exited, so that the
+ * values of the variables of exited scopes can be garbage collected; unresolved variables are either undeclared or
+ * already declared, and are reported as such
+ */
+public class DynamicEnv implements Environment<Value> {
+
+	private Value[][] frames = new Value[16][];
+	private int depth;
+
+	public DynamicEnv() {
+		frames[0] = new Value[16];
+	}
+
+	@Override
+	public void enterScope() {
+		if (++depth == frames.length)
+			frames = Arrays.copyOf(frames, depth * 2);
+		if (frames[depth] == null)
+			frames[depth] = new Value[8];
+	}
+
+	@Override
+	public void exitScope() {
+		Arrays.fill(frames[depth--], null);
+	}
+
+	// nesting depth of the current scope
+	public int depth() {
+		return depth;
+	}
+
+	/*
+	 * the array of the scope at 'depth', which must not be greater than the current one; used by compiled code to
+	 * read and write the variables of the enclosing scopes
+	 */
+	public Value[] frame(int depth) {
+		return frames[depth];
+	}
+
+	// the scope declaring 'var'
+	private Value[] frame(NamedEntity var) {
+		if (var.depth() < 0)
+			throw new EnvironmentException("Undeclared " + var);
+		return frames[var.depth()];
+	}
+
+	@Override
+	public Value lookup(NamedEntity var) {
+		return frame(var)[var.slot()];
+	}
+
+	@Override
+	public Value dec(NamedEntity var, Value info) {
+		if (var.depth() < 0)
+			throw new EnvironmentException(var + " already declared");
+		final var slot = var.slot();
+		var frame = frames[var.depth()];
+		if (slot >= frame.length)
+			frame = frames[var.depth()] = Arrays.copyOf(frame, Math.max(slot + 1, frame.length * 2));
+		frame[slot] = requireNonNull(info);
+		return null;
+	}
+
+	// adds 'amount' to the integer value of 'var', whose scope is accessed once
+	public void increment(NamedEntity var, int amount) {
+		final var frame = frame(var);
+		frame[var.slot()] = IntValue.of(frame[var.slot()].toInt() + amount);
+	}
+
+	@Override
+	public Value update(NamedEntity var, Value info) {
+		final var frame = frame(var);
+		final var previous = frame[var.slot()];
+		frame[var.slot()] = requireNonNull(info);
+		return previous;
+	}
 }
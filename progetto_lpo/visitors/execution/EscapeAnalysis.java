@@ -0,0 +1,61 @@
+package progetto_lpo.visitors.execution;
+
+import progetto_lpo.parser.ast.*;
+
+/*
+ * whether the value of a variable may escape a block: the variable escapes unless all its occurrences in the block
+ * are the operand of 'fst' or 'snd', hence its value is never copied, compared or printed as a whole; assigning the
+ * variable does not make it escape, all the other fused statements read it
+ *
+ * used for the variable of a for statement over a dict, which is then bound to the same pair in all the iterations
+ */
+final class EscapeAnalysis {
+
+	private EscapeAnalysis() {
+	}
+
+	static boolean escapes(Variable var, Block block) {
+		return escapes(var, block.getStmtSeq());
+	}
+
+	private static boolean escapes(Variable var, StmtSeq stmtSeq) {
+		return switch (stmtSeq) {
+		case EmptyStmtSeq s -> false;
+		case NonEmptyStmtSeq s -> escapes(var, s.getFirst()) || escapes(var, s.getRest());
+		case ArrayStmtSeq s -> s.getStmts().stream().anyMatch(stmt -> escapes(var, stmt));
+		};
+	}
+
+	private static boolean escapes(Variable var, Stmt stmt) {
+		return switch (stmt) {
+		case AbstractAssignStmt s -> escapes(var, s.getExp());
+		case PrintStmt s -> escapes(var, s.getExp());
+		case PrintEqStmt s -> escapes(var, s.getLeft()) || escapes(var, s.getRight());
+		case IfStmt s -> escapes(var, s.getExp()) || escapes(var, s.getThenBlock())
+				|| s.getElseBlock() != null && escapes(var, s.getElseBlock());
+		case Block s -> escapes(var, s.getStmtSeq());
+		case ForStmt s -> escapes(var, s.getExp()) || escapes(var, s.getBlock());
+		case MemoForStmt s -> escapes(var, s.getExp()) || escapes(var, s.getBlock());
+		case IncStmt s -> var.equals(s.getVar());
+		case DictUpdateStmt s -> var.equals(s.getVar()) || escapes(var, s.getIndex()) || escapes(var, s.getValue());
+		case DictDeleteStmt s -> var.equals(s.getVar()) || escapes(var, s.getIndex());
+		};
+	}
+
+	private static boolean escapes(Variable var, Exp exp) {
+		return switch (exp) {
+		case Variable v -> var.equals(v);
+		case Fst e -> !var.equals(e.getExp()) && escapes(var, e.getExp());
+		case Snd e -> !var.equals(e.getExp()) && escapes(var, e.getExp());
+		case UnaryOp e -> escapes(var, e.getExp());
+		case BinaryOp e -> escapes(var, e.getLeft()) || escapes(var, e.getRight());
+		case AtomicLiteral<?> e -> false;
+		case Dict e -> escapes(var, e.getKey()) || escapes(var, e.getValue());
+		case DictLit e -> e.getEntries().values().stream().anyMatch(value -> escapes(var, value));
+		case DictUpdate e -> escapes(var, e.getDict()) || escapes(var, e.getIndex()) || escapes(var, e.getValue());
+		case DictDelete e -> escapes(var, e.getDict()) || escapes(var, e.getIndex());
+		case DictAccess e -> escapes(var, e.getDict()) || escapes(var, e.getIndex());
+		case MemoExp e -> escapes(var, e.getExp());
+		};
+	}
+}
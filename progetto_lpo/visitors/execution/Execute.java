@@ -1,15 +1,25 @@
 package progetto_lpo.visitors.execution;
 
+import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 
 import progetto_lpo.environments.EnvironmentException;
-import progetto_lpo.environments.GenEnvironment;
 import progetto_lpo.parser.ast.Block;
 import progetto_lpo.parser.ast.Exp;
+import progetto_lpo.parser.ast.InlineCache;
+import progetto_lpo.parser.ast.MemoExp;
 import progetto_lpo.parser.ast.Stmt;
 import progetto_lpo.parser.ast.StmtSeq;
 import progetto_lpo.parser.ast.Variable;
 import progetto_lpo.visitors.Visitor;
+import progetto_lpo.visitors.optimization.Fuse;
+import progetto_lpo.visitors.optimization.Memoize;
+import progetto_lpo.visitors.resolution.Resolve;
 
 import static java.util.Objects.requireNonNull;
 
@@ -17,21 +27,92 @@ public class Execute implements Visitor<Value> {
 
 	private final DynamicEnv env = new DynamicEnv();
 	private final PrintWriter printWriter; // output stream used to print values
+	private final Tiering tiering; // compiles the hot for statements, null if they are only interpreted
+	private final HashCons hashCons; // interns the pairs and dicts built by the program, null if they are not
+	private final boolean memoize; // whether the expressions of the program are memoized by 'prepare()'
+	private Value[] memos = new Value[0]; // values of the memoized expressions, null if not computed yet
+	private final Map<Block, Boolean> escaping = new IdentityHashMap<>(); // whether the loop variable escapes
+	private StmtSeq program; // the program returned by 'prepare()', null if not run yet
 
 	public Execute() {
 		printWriter = new PrintWriter(System.out, true);
+		tiering = null;
+		hashCons = null;
+		memoize = true;
 	}
 
 	public Execute(PrintWriter printWriter) {
+		this(printWriter, null);
+	}
+
+	public Execute(PrintWriter printWriter, Tiering tiering) {
+		this(printWriter, tiering, null);
+	}
+
+	public Execute(PrintWriter printWriter, Tiering tiering, HashCons hashCons) {
+		this(printWriter, tiering, hashCons, true);
+	}
+
+	public Execute(PrintWriter printWriter, Tiering tiering, HashCons hashCons, boolean memoize) {
 		this.printWriter = requireNonNull(printWriter);
+		this.tiering = tiering;
+		this.hashCons = hashCons;
+		this.memoize = memoize;
+	}
+
+	// 'pair', or the equal pair interned before in hash-consing mode
+	private PairValue intern(PairValue pair) {
+		return hashCons == null ? pair : hashCons.intern(pair);
+	}
+
+	// 'dict', or the equal dict interned before in hash-consing mode; 'dict' must not be owned
+	private DictValue intern(DictValue dict) {
+		return hashCons == null ? dict : hashCons.intern(dict);
+	}
+
+	// evaluates 'exp' to an integer; overridden by 'TypedExecute', which avoids boxing
+	protected int evalInt(Exp exp) {
+		return exp.accept(this).toInt();
+	}
+
+	// evaluates 'exp' to a boolean; overridden by 'TypedExecute', which avoids boxing
+	protected boolean evalBool(Exp exp) {
+		return exp.accept(this).toBool();
+	}
+
+	// compares the values of 'left' and 'right'; overridden by 'TypedExecute', which avoids boxing
+	protected boolean equal(Exp left, Exp right) {
+		return left.accept(this).equals(right.accept(this));
+	}
+
+	/*
+	 * resolves the variables of 'stmtSeq', fuses its common statement shapes and, unless disabled, memoizes its loop
+	 * invariant and common subexpressions
+	 */
+	protected StmtSeq prepare(StmtSeq stmtSeq) {
+		final var fused = (StmtSeq) stmtSeq.accept(new Resolve()).accept(new Fuse());
+		if (!memoize)
+			return fused;
+		final var memoizer = new Memoize();
+		final var prepared = (StmtSeq) fused.accept(memoizer);
+		memos = new Value[memoizer.slots()];
+		return prepared;
+	}
+
+	// prints the counters of the inline caches of the dict operations of the program run
+	public void printCacheStats(PrintStream out) {
+		if (program != null)
+			CacheStats.print(program, out);
 	}
 
 	// dynamic semantics for programs; no value returned by the visitor
 
+	// variables are accessed by lexical address, hence the program is resolved first
 	@Override
 	public Value visitMyLangProg(StmtSeq stmtSeq) {
 		try {
-			stmtSeq.accept(this);
+			program = prepare(stmtSeq);
+			program.accept(this);
 			// possible runtime errors
 			// EnvironmentException: undefined variable
 		} catch (EnvironmentException e) {
@@ -62,7 +143,7 @@ public class Execute implements Visitor<Value> {
 
 	@Override
 	public Value visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
-		if (exp.accept(this).toBool())
+		if (evalBool(exp))
 			thenBlock.accept(this);
 		else if (elseBlock != null)
 			elseBlock.accept(this);
@@ -77,6 +158,41 @@ public class Execute implements Visitor<Value> {
 		return null;
 	}
 
+	// fused statements, built by 'Fuse'
+
+	@Override
+	public Value visitIncStmt(Variable var, int amount) {
+		env.increment(var, amount);
+		return null;
+	}
+
+	/*
+	 * the dict of the variable is updated directly, without the inline cache of the expression it replaces; the
+	 * variable owns the result, since the previous dict is no longer reachable from it, hence the next updates of
+	 * the variable change the dict in place, until it is read by 'visitVariable()'
+	 */
+	@Override
+	public Value visitDictUpdateStmt(Variable var, Exp index, Exp value) {
+		final var dict = env.lookup(var).toDict();
+		final var key = evalInt(index);
+		env.update(var, dict.putOwned(key, value.accept(this)));
+		return null;
+	}
+
+	@Override
+	public Value visitDictDeleteStmt(Variable var, Exp index) {
+		final var dict = env.lookup(var).toDict();
+		env.update(var, dict.removeOwned(evalInt(index)));
+		return null;
+	}
+
+	// the result of the comparison is printed unboxed
+	@Override
+	public Value visitPrintEqStmt(Exp left, Exp right) {
+		printWriter.println(equal(left, right));
+		return null;
+	}
+
 	// dynamic semantics for sequences of statements
 	// no value returned by the visitor
 
@@ -92,56 +208,76 @@ public class Execute implements Visitor<Value> {
 		return null;
 	}
 
+	@Override
+	public Value visitArrayStmtSeq(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			stmt.accept(this);
+		return null;
+	}
+
 	// dynamic semantics of expressions; a value is returned by the visitor
 
 	@Override
 	public IntValue visitAdd(Exp left, Exp right) {
-		return new IntValue(left.accept(this).toInt() + right.accept(this).toInt());
+		return IntValue.of(evalInt(left) + evalInt(right));
 	}
 
 	@Override
 	public IntValue visitIntLiteral(int value) {
-		return new IntValue(value);
+		return IntValue.of(value);
 	}
 
 	@Override
 	public IntValue visitMul(Exp left, Exp right) {
-		return new IntValue(left.accept(this).toInt() * right.accept(this).toInt());
+		return IntValue.of(evalInt(left) * evalInt(right));
 	}
 
 	@Override
 	public IntValue visitSign(Exp exp) {
-		return new IntValue(-exp.accept(this).toInt());
+		return IntValue.of(-evalInt(exp));
 	}
 
+	/*
+	 * the value may be copied into another variable, pair or dict, hence a dict is no longer owned by the variable;
+	 * in hash-consing mode it is interned, and the variable is set to the interned dict
+	 */
 	@Override
 	public Value visitVariable(Variable var) {
-		return env.lookup(var);
+		final var value = env.lookup(var);
+		if (value instanceof DictValue dict && dict.isOwned()) {
+			dict.share();
+			if (hashCons != null) {
+				final var interned = hashCons.intern(dict);
+				env.update(var, interned);
+				return interned;
+			}
+		}
+		return value;
 	}
 
 	@Override
 	public BoolValue visitNot(Exp exp) {
-		return new BoolValue(!exp.accept(this).toBool());
+		return BoolValue.of(!evalBool(exp));
 	}
 
 	@Override
 	public BoolValue visitAnd(Exp left, Exp right) {
-		return new BoolValue(left.accept(this).toBool() && right.accept(this).toBool());
+		return BoolValue.of(evalBool(left) && evalBool(right));
 	}
 
 	@Override
 	public BoolValue visitBoolLiteral(boolean value) {
-		return new BoolValue(value);
+		return BoolValue.of(value);
 	}
 
 	@Override
 	public BoolValue visitEq(Exp left, Exp right) {
-		return new BoolValue(left.accept(this).equals(right.accept(this)));
+		return BoolValue.of(equal(left, right));
 	}
 
 	@Override
 	public PairValue visitPairLit(Exp left, Exp right) {
-		return new PairValue(left.accept(this), right.accept(this));
+		return intern(new PairValue(left.accept(this), right.accept(this)));
 	}
 
 	@Override
@@ -154,41 +290,125 @@ public class Execute implements Visitor<Value> {
 		return exp.accept(this).toPair().getSndVal();
 	}
 
+	/*
+	 * dicts are iterated in key order by a cursor, the loop variable is bound to the pairs of their entries; the
+	 * bound is evaluated once, later updates of the dict do not affect the loop since they build a new dict
+	 *
+	 * the entries are not copied; if the loop variable does not escape the block, it is only used by 'fst' and
+	 * 'snd', and it is bound to the same pair in all the iterations, otherwise each iteration creates its pair
+	 */
 	@Override
 	public Value visitForStmt(Variable var, Exp exp, Block block) {
-		// potrebbe avere senso da vedere se si deve utilizzare enterScope()
-		
-		// visito exp ed estraggo il numero di loop che il for deve fare 
-		int loop = exp.accept(this).toInt();
-		for(int i = 0; i < loop; i++)
-		{
-			env.update(var, new IntValue(i));
+		final var dict = exp.accept(this).toDict();
+		final var escapes = escaping.computeIfAbsent(block, b -> EscapeAnalysis.escapes(var, b));
+		final var profile = tiering == null ? null : tiering.enter(var, block);
+		PairValue entry = null;
+		var iteration = 0;
+		for (var cursor = dict.cursor(); cursor.next(); iteration++) {
+			if (profile != null
+					&& tiering.tryRunCompiled(profile, env, memos, iteration, DictValue.remaining(cursor),
+							printWriter))
+				break; // the remaining iterations were run by the compiled loop
+			final var key = IntValue.of(cursor.key);
+			if (escapes || entry == null)
+				entry = new PairValue(key, cursor.value);
+			else
+				entry.set(key, cursor.value);
+			env.enterScope(); // the loop variable is declared in a scope enclosing the block
+			env.dec(var, entry);
 			block.accept(this);
+			env.exitScope();
+			if (profile != null)
+				profile.backEdges++;
 		}
 		return null;
 	}
 
+	// the slots of the expressions memoized in the loop are cleared each time it starts
 	@Override
-	public Value visitDict(Exp key, Exp value)
-	{
-		return null;
+	public Value visitMemoForStmt(Variable var, Exp exp, Block block, int firstMemo, int memoCount) {
+		Arrays.fill(memos, firstMemo, firstMemo + memoCount, null);
+		return visitForStmt(var, exp, block);
 	}
 
 	@Override
-	public Value visitDictUpdate(Exp dict, Exp exp, Exp value) {
-		// return sbagliato
-		return null;
+	public Value visitMemoExp(Exp exp, int slot, MemoExp.Mode mode) {
+		return switch (mode) {
+		case LAZY -> {
+			final var value = memos[slot];
+			yield value != null ? value : (memos[slot] = exp.accept(this));
+		}
+		case STORE -> memos[slot] = exp.accept(this);
+		case LOAD -> memos[slot];
+		};
+	}
+
+	// dict operations evaluate the dict first, then the key and, for updates, the value
+
+	@Override
+	public DictValue visitDict(Exp key, Exp value) {
+		final var k = evalInt(key);
+		return intern(DictValue.of(k, value.accept(this)));
 	}
 
 	@Override
-	public Value visitDictDelete(Exp dict, Exp index) {
-		// return sbagliato
-		return null;
+	public DictValue visitDictLit(SortedMap<Integer, Exp> entries) {
+		var dict = DictValue.EMPTY;
+		for (var entry : entries.entrySet())
+			dict = dict.put(entry.getKey(), entry.getValue().accept(this));
+		return intern(dict);
+	}
+
+	@Override
+	public DictValue visitDictUpdate(Exp dict, Exp exp, Exp value) {
+		final var d = dict.accept(this).toDict();
+		final var k = evalInt(exp);
+		return intern(d.put(k, value.accept(this)));
+	}
+
+	@Override
+	public DictValue visitDictDelete(Exp dict, Exp index) {
+		final var d = dict.accept(this).toDict();
+		return intern(d.remove(evalInt(index)));
+	}
+
+	// a lookup does not copy its dict, which stays owned if read from a variable
+	private DictValue lookupDict(Exp dict) {
+		return dict instanceof Variable var ? env.lookup(var).toDict() : dict.accept(this).toDict();
 	}
 
 	@Override
 	public Value visitDictAccess(Exp dict, Exp index) {
-		// return sbagliato
-		return null;
+		final var d = lookupDict(dict);
+		return d.get(evalInt(index));
+	}
+
+	// the inline cache of the node is checked first, dicts are immutable unless owned, and owned ones are not cached
+
+	@Override
+	public Value visitDictAccess(Exp dict, Exp index, InlineCache cache) {
+		final var d = lookupDict(dict);
+		final var k = evalInt(index);
+		if (d.isOwned())
+			return d.get(k);
+		final var cached = cache.lookup(d, k, null);
+		if (cached != null)
+			return (Value) cached;
+		final var result = d.get(k);
+		cache.fill(d, k, null, result);
+		return result;
+	}
+
+	@Override
+	public Value visitDictUpdate(Exp dict, Exp index, Exp value, InlineCache cache) {
+		final var d = dict.accept(this).toDict();
+		final var k = evalInt(index);
+		final var v = value.accept(this);
+		final var cached = cache.lookup(d, k, v);
+		if (cached != null)
+			return (Value) cached;
+		final var result = intern(d.put(k, v));
+		cache.fill(d, k, v, result);
+		return result;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package progetto_lpo.visitors.execution;
+
+import java.io.PrintStream;
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/*
+ * weak canonicalizing table of pairs and dicts, for the hash-consing mode of 'Execute': a value equal to one
+ * already interned is replaced by it, hence equal values built by the program are mostly the same object, and their
+ * comparison stops at the identity check; a value is dropped from the table once it is no longer reachable
+ *
+ * the hashes of pairs and dicts are computed in O(1), a lookup compares the entries only when it hits, or on a
+ * collision; dicts owned by a variable are updated in place and must not be interned
+ */
+public class HashCons {
+
+	private final WeakHashMap<Value, WeakReference<Value>> table = new WeakHashMap<>();
+	private long lookups;
+	private long hits;
+
+	// the value interned before equal to 'value', otherwise 'value', which is interned
+	private Value intern(Value value) {
+		lookups++;
+		final var ref = table.get(value);
+		final var canonical = ref == null ? null : ref.get();
+		if (canonical != null) {
+			hits++;
+			return canonical;
+		}
+		table.put(value, new WeakReference<>(value));
+		return value;
+	}
+
+	PairValue intern(PairValue pair) {
+		return (PairValue) intern((Value) pair);
+	}
+
+	DictValue intern(DictValue dict) {
+		return (DictValue) intern((Value) dict);
+	}
+
+	// prints the number of values in the table and the hit rate of lookups
+	public void printStats(PrintStream out) {
+		out.printf("hash-consing: %d values in table, %d lookups, %d hits (%.1f%%)%n", table.size(), lookups, hits,
+				lookups == 0 ? 0.0 : 100.0 * hits / lookups);
+	}
+}
@@ -1,9 +1,33 @@
 package progetto_lpo.visitors.execution;
 
-public class IntValue extends AtomicValue<Integer> {
+/*
+ * integer values hold a primitive 'int'; they are immutable, hence the values of the small integers, as loop counters
+ * and most literals, are shared through a cache and only the others are allocated
+ *
+ * equality and hash codes are the ones of the boxed 'Integer' they used to wrap
+ */
+public final class IntValue implements Value {
 
-	public IntValue(Integer value) {
-		super(value);
+	private static final int CACHE_LOW = -128;
+	private static final int CACHE_HIGH = 1023;
+	private static final IntValue[] cache = new IntValue[CACHE_HIGH - CACHE_LOW + 1];
+
+	static {
+		for (var i = 0; i < cache.length; i++)
+			cache[i] = new IntValue(CACHE_LOW + i);
+	}
+
+	private final int value;
+
+	private IntValue(int value) {
+		this.value = value;
+	}
+
+	// the value of 'value', shared if it is a small integer
+	public static IntValue of(int value) {
+		if (value >= CACHE_LOW && value <= CACHE_HIGH)
+			return cache[value - CACHE_LOW];
+		return new IntValue(value);
 	}
 
 	@Override
@@ -11,4 +35,20 @@ public class IntValue extends AtomicValue<Integer> {
 		return value;
 	}
 
-}
\ No newline at end of file
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		return obj instanceof IntValue iv && value == iv.value;
+	}
+
+	@Override
+	public int hashCode() {
+		return Integer.hashCode(value);
+	}
+
+	@Override
+	public String toString() {
+		return Integer.toString(value);
+	}
+}
@@ -1,16 +1,25 @@
 package progetto_lpo.visitors.execution;
 
 import static java.util.Objects.requireNonNull;
-import static java.util.Objects.hash;
 
-public class PairValue implements Value {
+public final class PairValue implements Value {
 
-	private final Value fstVal;
-	private final Value sndVal;
+	private Value fstVal;
+	private Value sndVal;
+	private int hash; // computed when the components are set
 
 	public PairValue(Value fstVal, Value sndVal) {
+		set(fstVal, sndVal);
+	}
+
+	/*
+	 * changes the components, only for the pair bound to the variable of a for statement over a dict which does
+	 * not escape its block, hence the pair is never seen by the program as a whole; see 'Execute.visitForStmt()'
+	 */
+	void set(Value fstVal, Value sndVal) {
 		this.fstVal = requireNonNull(fstVal);
 		this.sndVal = requireNonNull(sndVal);
+		hash = 31 * (31 + fstVal.hashCode()) + sndVal.hashCode();
 	}
 
 	public Value getFstVal() {
@@ -33,15 +42,16 @@ public class PairValue implements Value {
 
 	@Override
 	public int hashCode() {
-		return hash(fstVal, sndVal);
+		return hash;
 	}
 
+	// the components are compared only if the hashes are equal
 	@Override
 	public final boolean equals(Object obj) {
 		if (this == obj)
 			return true;
 		if (obj instanceof PairValue pv)
-			return fstVal.equals(pv.fstVal) && sndVal.equals(pv.sndVal);
+			return hash == pv.hash && fstVal.equals(pv.fstVal) && sndVal.equals(pv.sndVal);
 		return false;
 	}
 }
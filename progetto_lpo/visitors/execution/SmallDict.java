@@ -0,0 +1,103 @@
+package progetto_lpo.visitors.execution;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+
+/*
+ * dict with at most SMALL_MAX entries, whose keys and values are packed in two arrays sorted by key; an update
+ * copies them, which is cheaper than copying the path of a tree for so few entries; only the values of an owned dict
+ * are replaced in place, its array of values is never shared, unlike the one of keys
+ *
+ * an insertion beyond SMALL_MAX entries promotes the dict to the representation chosen by 'DictValue.of()'
+ */
+final class SmallDict extends DictValue {
+
+	static final SmallDict EMPTY = new SmallDict(new int[0], new Value[0]);
+
+	private final int[] keys;
+	private final Value[] values;
+
+	SmallDict(int[] keys, Value[] values) {
+		this.keys = keys;
+		this.values = values;
+		for (var i = 0; i < keys.length; i++)
+			hash += entryHash(keys[i], values[i]);
+	}
+
+	@Override
+	Cursor cursor() {
+		return new Cursor() {
+			private int next; // index of the next entry
+
+			@Override
+			boolean next() {
+				if (next == keys.length)
+					return false;
+				key = keys[next];
+				value = values[next++];
+				return true;
+			}
+		};
+	}
+
+	@Override
+	public Representation representation() {
+		return Representation.SMALL;
+	}
+
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	@Override
+	public Value get(int key) {
+		final var i = Arrays.binarySearch(keys, key);
+		if (i < 0)
+			throw missingKey(key);
+		return values[i];
+	}
+
+	@Override
+	DictValue put(int key, Value value, Object owner) {
+		requireNonNull(value);
+		var i = Arrays.binarySearch(keys, key);
+		if (i >= 0) {
+			if (values[i] == value)
+				return this;
+			if (owner != null && owner == this.owner) {
+				hash += entryHash(key, value) - entryHash(key, values[i]);
+				values[i] = value;
+				return this;
+			}
+			final var newValues = values.clone();
+			newValues[i] = value;
+			return new SmallDict(keys, newValues); // the keys are shared
+		}
+		i = -i - 1;
+		final var newKeys = new int[keys.length + 1];
+		final var newValues = new Value[newKeys.length];
+		System.arraycopy(keys, 0, newKeys, 0, i);
+		System.arraycopy(values, 0, newValues, 0, i);
+		newKeys[i] = key;
+		newValues[i] = value;
+		System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+		System.arraycopy(values, i, newValues, i + 1, keys.length - i);
+		return of(newKeys, newValues);
+	}
+
+	@Override
+	DictValue remove(int key, Object owner) {
+		final var i = Arrays.binarySearch(keys, key);
+		if (i < 0)
+			throw missingKey(key);
+		final var newKeys = new int[keys.length - 1];
+		final var newValues = new Value[newKeys.length];
+		System.arraycopy(keys, 0, newKeys, 0, i);
+		System.arraycopy(values, 0, newValues, 0, i);
+		System.arraycopy(keys, i + 1, newKeys, i, newKeys.length - i);
+		System.arraycopy(values, i + 1, newValues, i, newKeys.length - i);
+		return new SmallDict(newKeys, newValues);
+	}
+}
@@ -0,0 +1,160 @@
+package progetto_lpo.visitors.execution;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import progetto_lpo.environments.EnvironmentException;
+import progetto_lpo.parser.ast.*;
+import progetto_lpo.visitors.optimization.Fuse;
+import progetto_lpo.visitors.optimization.Memoize;
+import progetto_lpo.visitors.resolution.Resolve;
+
+/*
+ * same dynamic semantics as 'Execute', but nodes are dispatched by pattern matching 'switch' over the sealed
+ * hierarchies of the AST instead of double dispatch through 'accept()'; each switch is a single type test site the
+ * JIT compiler can profile, and the evaluation of the children is a direct recursive call which can be inlined
+ */
+public class SwitchExecute {
+
+	private final DynamicEnv env = new DynamicEnv();
+	private final PrintWriter printWriter; // output stream used to print values
+	private final boolean memoize; // whether the expressions of the program are memoized
+	private Value[] memos = new Value[0]; // values of the memoized expressions, null if not computed yet
+
+	public SwitchExecute() {
+		printWriter = new PrintWriter(System.out, true);
+		memoize = true;
+	}
+
+	public SwitchExecute(PrintWriter printWriter) {
+		this(printWriter, true);
+	}
+
+	public SwitchExecute(PrintWriter printWriter, boolean memoize) {
+		this.printWriter = requireNonNull(printWriter);
+		this.memoize = memoize;
+	}
+
+	/*
+	 * dynamic semantics for programs; variables are accessed by lexical address, hence the program is resolved
+	 * first, then its common statement shapes are fused and, unless disabled, its expressions memoized, as in
+	 * 'Execute'
+	 */
+	public void execute(Prog prog) {
+		try {
+			switch (prog) {
+			case MyLangProg p -> {
+				var stmtSeq = (StmtSeq) p.getStmtSeq().accept(new Resolve()).accept(new Fuse());
+				if (memoize) {
+					final var memoizer = new Memoize();
+					stmtSeq = (StmtSeq) stmtSeq.accept(memoizer);
+					memos = new Value[memoizer.slots()];
+				}
+				execute(stmtSeq);
+			}
+			}
+		} catch (EnvironmentException e) {
+			throw new InterpreterException(e);
+		}
+	}
+
+	// dynamic semantics for sequences of statements
+
+	private void execute(StmtSeq stmtSeq) {
+		switch (stmtSeq) {
+		case EmptyStmtSeq s -> {
+		}
+		case NonEmptyStmtSeq s -> {
+			execute(s.getFirst());
+			execute(s.getRest());
+		}
+		case ArrayStmtSeq s -> {
+			for (var stmt : s.getStmts())
+				execute(stmt);
+		}
+		}
+	}
+
+	// dynamic semantics for statements
+
+	private void execute(Stmt stmt) {
+		switch (stmt) {
+		case AssignStmt s -> env.update(s.getVar(), evaluate(s.getExp()));
+		case VarStmt s -> env.dec(s.getVar(), evaluate(s.getExp()));
+		case PrintStmt s -> printWriter.println(evaluate(s.getExp()));
+		case IfStmt s -> {
+			if (evaluate(s.getExp()).toBool())
+				execute(s.getThenBlock());
+			else if (s.getElseBlock() != null)
+				execute(s.getElseBlock());
+		}
+		case Block s -> {
+			env.enterScope();
+			execute(s.getStmtSeq());
+			env.exitScope();
+		}
+		case ForStmt s -> loop(s.getVar(), s.getExp(), s.getBlock());
+		case MemoForStmt s -> {
+			Arrays.fill(memos, s.getFirstMemo(), s.getFirstMemo() + s.getMemoCount(), null);
+			loop(s.getVar(), s.getExp(), s.getBlock());
+		}
+		case IncStmt s -> env.increment(s.getVar(), s.getAmount());
+		case DictUpdateStmt s -> env.update(s.getVar(),
+				env.lookup(s.getVar()).toDict().put(evaluate(s.getIndex()).toInt(), evaluate(s.getValue())));
+		case DictDeleteStmt s -> env.update(s.getVar(),
+				env.lookup(s.getVar()).toDict().remove(evaluate(s.getIndex()).toInt()));
+		case PrintEqStmt s -> printWriter.println(evaluate(s.getLeft()).equals(evaluate(s.getRight())));
+		}
+	}
+
+	// dicts are iterated in key order, the loop variable is bound to the pairs of their entries, as in 'Execute'
+	private void loop(Variable var, Exp exp, Block block) {
+		for (var entry : evaluate(exp).toDict()) {
+			env.enterScope(); // the loop variable is declared in a scope enclosing the block
+			env.dec(var, entry);
+			execute(block);
+			env.exitScope();
+		}
+	}
+
+	// dynamic semantics of expressions
+
+	private Value evaluate(Exp exp) {
+		return switch (exp) {
+		case Add e -> IntValue.of(evaluate(e.getLeft()).toInt() + evaluate(e.getRight()).toInt());
+		case Mul e -> IntValue.of(evaluate(e.getLeft()).toInt() * evaluate(e.getRight()).toInt());
+		case Sign e -> IntValue.of(-evaluate(e.getExp()).toInt());
+		case IntLiteral e -> IntValue.of(e.getValue());
+		case Variable e -> env.lookup(e);
+		case Not e -> BoolValue.of(!evaluate(e.getExp()).toBool());
+		case And e -> BoolValue.of(evaluate(e.getLeft()).toBool() && evaluate(e.getRight()).toBool());
+		case BoolLiteral e -> BoolValue.of(e.getValue());
+		case Eq e -> BoolValue.of(evaluate(e.getLeft()).equals(evaluate(e.getRight())));
+		case PairLit e -> new PairValue(evaluate(e.getLeft()), evaluate(e.getRight()));
+		case Fst e -> evaluate(e.getExp()).toPair().getFstVal();
+		case Snd e -> evaluate(e.getExp()).toPair().getSndVal();
+		// the dict is evaluated first, then the key and, for updates, the value
+		case Dict e -> DictValue.of(evaluate(e.getKey()).toInt(), evaluate(e.getValue()));
+		case DictLit e -> {
+			var dict = DictValue.EMPTY;
+			for (var entry : e.getEntries().entrySet())
+				dict = dict.put(entry.getKey(), evaluate(entry.getValue()));
+			yield dict;
+		}
+		case DictUpdate e ->
+			evaluate(e.getDict()).toDict().put(evaluate(e.getIndex()).toInt(), evaluate(e.getValue()));
+		case DictDelete e -> evaluate(e.getDict()).toDict().remove(evaluate(e.getIndex()).toInt());
+		case DictAccess e -> evaluate(e.getDict()).toDict().get(evaluate(e.getIndex()).toInt());
+		case MemoExp e -> switch (e.getMode()) {
+		case LAZY -> {
+			final var value = memos[e.getSlot()];
+			yield value != null ? value : (memos[e.getSlot()] = evaluate(e.getExp()));
+		}
+		case STORE -> memos[e.getSlot()] = evaluate(e.getExp());
+		case LOAD -> memos[e.getSlot()];
+		};
+		};
+	}
+}
@@ -0,0 +1,94 @@
+package progetto_lpo.visitors.execution;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import progetto_lpo.parser.ast.Block;
+import progetto_lpo.parser.ast.Variable;
+import progetto_lpo.visitors.closures.CompileClosures;
+import progetto_lpo.visitors.closures.CompiledLoop;
+
+/*
+ * tiered execution of for statements: the interpreter counts the invocations and the back-edges of each loop, and
+ * once a loop has run 'threshold' iterations its block is compiled into closures, which run its remaining
+ * iterations and all the following invocations; short programs are only interpreted, hence they start fast
+ *
+ * a compiled loop depends on the layout of the arrays of the enclosing scopes, it is compiled again in the rare
+ * case they have grown
+ */
+public class Tiering {
+
+	public static final int DEFAULT_THRESHOLD = 1000;
+
+	// profile of a for statement, identified by its block
+	static final class LoopProfile {
+		private final Variable var;
+		private final Block block;
+		private int invocations;
+		long backEdges; // iterations run by the interpreter
+		private long compiledIterations;
+		private int compilations;
+		private int tierUpInvocation; // invocation in which the loop was first compiled, 0 if never
+		private long tierUpIteration; // iteration from which the compiled loop was first run
+		private CompiledLoop compiled;
+
+		private LoopProfile(Variable var, Block block) {
+			this.var = var;
+			this.block = block;
+		}
+	}
+
+	private final int threshold;
+	private final boolean typed; // whether the program was typechecked
+	private final Map<Block, LoopProfile> profiles = new LinkedHashMap<>(); // blocks are compared by identity
+
+	public Tiering(int threshold, boolean typed) {
+		if (threshold <= 0)
+			throw new IllegalArgumentException("Non-positive threshold " + threshold);
+		this.threshold = threshold;
+		this.typed = typed;
+	}
+
+	// the profile of the for statement with loop variable 'var' and 'block', which is being invoked
+	LoopProfile enter(Variable var, Block block) {
+		final var profile = profiles.computeIfAbsent(block, b -> new LoopProfile(var, b));
+		profile.invocations++;
+		return profile;
+	}
+
+	/*
+	 * if the loop of 'profile' is hot, runs the iterations over 'entries', the remaining entries of a dict from
+	 * the one of iteration 'from', with the compiled code and the 'memos' of the interpreter, and returns true;
+	 * otherwise returns false, and the iterations are left to the interpreter
+	 */
+	boolean tryRunCompiled(LoopProfile profile, DynamicEnv env, Value[] memos, int from,
+			Iterator<PairValue> entries, PrintWriter out) {
+		if (profile.backEdges < threshold)
+			return false;
+		if (profile.compiled == null || !profile.compiled.fits(env)) {
+			profile.compiled = CompileClosures.compileLoop(profile.var, profile.block, env, typed);
+			if (profile.compilations++ == 0) {
+				profile.tierUpInvocation = profile.invocations;
+				profile.tierUpIteration = from;
+			}
+		}
+		profile.compiledIterations += profile.compiled.run(env, memos, entries, out);
+		return true;
+	}
+
+	// prints the profile of each loop and its tier transitions
+	public void printStats(PrintStream out) {
+		out.printf("tiering: threshold %d, %d loops profiled%n", threshold, profiles.size());
+		for (var profile : profiles.values()) {
+			out.printf("  for %s: %d invocations, %d iterations interpreted, %d compiled", profile.var.name(),
+					profile.invocations, profile.backEdges, profile.compiledIterations);
+			if (profile.compilations > 0)
+				out.printf("; compiled %d time(s), first at invocation %d, iteration %d", profile.compilations,
+						profile.tierUpInvocation, profile.tierUpIteration);
+			out.println();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package progetto_lpo.visitors.execution;
+
+import static java.util.Objects.requireNonNull;
+
+/*
+ * dict whose entries are in an AVL tree ordered by key: an update or a deletion copies only the path from the root
+ * to the changed node, in O(log n), and shares the rest of the tree with the previous version
+ *
+ * trees are kept for any shape of keys, a deletion which leaves at most SMALL_MAX entries demotes the dict to a
+ * small one
+ *
+ * the nodes built by the updates of an owned dict are 'OwnedNode's with its token, which are changed in place,
+ * rotations included, by the later updates of that dict; the other nodes are never changed
+ */
+final class TreeDict extends DictValue {
+
+	// node of the tree, its height is the one of its subtree
+	private static class Node {
+		int key;
+		Value value;
+		Node left;
+		Node right;
+		int height;
+
+		Node(int key, Value value, Node left, Node right) {
+			set(key, value, left, right);
+		}
+
+		final void set(int key, Value value, Node left, Node right) {
+			this.key = key;
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			height = Math.max(height(left), height(right)) + 1;
+		}
+	}
+
+	private static final class OwnedNode extends Node {
+		final Object owner;
+
+		OwnedNode(int key, Value value, Node left, Node right, Object owner) {
+			super(key, value, left, right);
+			this.owner = owner;
+		}
+	}
+
+	private Node root;
+	private int size;
+
+	private TreeDict(Node root, int size, int hash) {
+		this.root = root;
+		this.size = size;
+		this.hash = hash;
+	}
+
+	// the dict with the entries 'keys[i]:values[i]', where the keys are sorted; the tree is built balanced, in O(n)
+	static TreeDict of(int[] keys, Value[] values) {
+		var hash = 0;
+		for (var i = 0; i < keys.length; i++)
+			hash += entryHash(keys[i], values[i]);
+		return new TreeDict(build(keys, values, 0, keys.length), keys.length, hash);
+	}
+
+	private static Node build(int[] keys, Value[] values, int from, int to) {
+		if (from == to)
+			return null;
+		final var mid = (from + to) >>> 1;
+		return new Node(keys[mid], values[mid], build(keys, values, from, mid), build(keys, values, mid + 1, to));
+	}
+
+	private static int height(Node node) {
+		return node == null ? 0 : node.height;
+	}
+
+	// 'node' set to the given fields if it is owned by 'owner', otherwise a new node, owned by 'owner' if not null
+	private static Node node(Node node, Object owner, int key, Value value, Node left, Node right) {
+		if (node instanceof OwnedNode owned && owned.owner == owner) {
+			owned.set(key, value, left, right);
+			return owned;
+		}
+		return owner == null ? new Node(key, value, left, right) : new OwnedNode(key, value, left, right, owner);
+	}
+
+	/*
+	 * the node with the entries of 'left', 'key:value' and 'right', rebalanced by at most two rotations; 'node' is
+	 * the node replaced, 'node' and the rotated nodes are reused if owned by 'owner', the fields of a node are read
+	 * before it is reused
+	 */
+	private static Node balance(Node node, Object owner, int key, Value value, Node left, Node right) {
+		if (height(left) > height(right) + 1) {
+			if (height(left.left) >= height(left.right))
+				return node(left, owner, left.key, left.value, left.left,
+						node(node, owner, key, value, left.right, right));
+			final var lr = left.right;
+			return node(lr, owner, lr.key, lr.value, node(left, owner, left.key, left.value, left.left, lr.left),
+					node(node, owner, key, value, lr.right, right));
+		}
+		if (height(right) > height(left) + 1) {
+			if (height(right.right) >= height(right.left))
+				return node(right, owner, right.key, right.value, node(node, owner, key, value, left, right.left),
+						right.right);
+			final var rl = right.left;
+			return node(rl, owner, rl.key, rl.value, node(node, owner, key, value, left, rl.left),
+					node(right, owner, right.key, right.value, rl.right, right.right));
+		}
+		return node(node, owner, key, value, left, right);
+	}
+
+	private static Node find(Node node, int key) {
+		while (node != null && node.key != key)
+			node = key < node.key ? node.left : node.right;
+		return node;
+	}
+
+	private static Node put(Node node, int key, Value value, Object owner) {
+		if (node == null)
+			return node(null, owner, key, value, null, null);
+		if (key < node.key)
+			return balance(node, owner, node.key, node.value, put(node.left, key, value, owner), node.right);
+		if (key > node.key)
+			return balance(node, owner, node.key, node.value, node.left, put(node.right, key, value, owner));
+		return node(node, owner, key, value, node.left, node.right);
+	}
+
+	private static Node min(Node node) {
+		while (node.left != null)
+			node = node.left;
+		return node;
+	}
+
+	private static Node removeMin(Node node, Object owner) {
+		if (node.left == null)
+			return node.right;
+		return balance(node, owner, node.key, node.value, removeMin(node.left, owner), node.right);
+	}
+
+	// 'key' must be in the tree of 'node'
+	private static Node remove(Node node, int key, Object owner) {
+		if (key < node.key)
+			return balance(node, owner, node.key, node.value, remove(node.left, key, owner), node.right);
+		if (key > node.key)
+			return balance(node, owner, node.key, node.value, node.left, remove(node.right, key, owner));
+		if (node.left == null)
+			return node.right;
+		if (node.right == null)
+			return node.left;
+		final var min = min(node.right);
+		return balance(node, owner, min.key, min.value, node.left, removeMin(node.right, owner));
+	}
+
+	// this dict changed to the given tree if it is owned by 'owner', otherwise a new dict
+	private TreeDict update(Object owner, Node root, int size, int hash) {
+		if (owner == null || owner != this.owner)
+			return new TreeDict(root, size, hash);
+		this.root = root;
+		this.size = size;
+		this.hash = hash;
+		return this;
+	}
+
+	// in-order traversal with an explicit stack of the nodes whose right subtree is still to be visited
+	@Override
+	Cursor cursor() {
+		return new Cursor() {
+			private final Node[] stack = new Node[height(root)];
+			private int top;
+
+			{
+				pushLeft(root);
+			}
+
+			private void pushLeft(Node node) {
+				for (; node != null; node = node.left)
+					stack[top++] = node;
+			}
+
+			@Override
+			boolean next() {
+				if (top == 0)
+					return false;
+				final var node = stack[--top];
+				pushLeft(node.right);
+				key = node.key;
+				value = node.value;
+				return true;
+			}
+		};
+	}
+
+	@Override
+	public Representation representation() {
+		return Representation.TREE;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Value get(int key) {
+		final var node = find(root, key);
+		if (node == null)
+			throw missingKey(key);
+		return node.value;
+	}
+
+	@Override
+	DictValue put(int key, Value value, Object owner) {
+		requireNonNull(value);
+		final var node = find(root, key);
+		if (node != null && node.value == value)
+			return this;
+		// before the node is reused
+		final var newHash = hash + entryHash(key, value) - (node == null ? 0 : entryHash(key, node.value));
+		return update(owner, put(root, key, value, owner), node == null ? size + 1 : size, newHash);
+	}
+
+	@Override
+	DictValue remove(int key, Object owner) {
+		final var node = find(root, key);
+		if (node == null)
+			throw missingKey(key);
+		if (size - 1 <= SMALL_MAX)
+			return without(key);
+		// before the node is reused
+		final var newHash = hash - entryHash(key, node.value);
+		return update(owner, remove(root, key, owner), size - 1, newHash);
+	}
+}
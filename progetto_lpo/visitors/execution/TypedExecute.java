@@ -0,0 +1,96 @@
+package progetto_lpo.visitors.execution;
+
+import java.io.PrintWriter;
+
+import progetto_lpo.parser.ast.Add;
+import progetto_lpo.parser.ast.And;
+import progetto_lpo.parser.ast.BoolLiteral;
+import progetto_lpo.parser.ast.Eq;
+import progetto_lpo.parser.ast.Exp;
+import progetto_lpo.parser.ast.IntLiteral;
+import progetto_lpo.parser.ast.Mul;
+import progetto_lpo.parser.ast.Not;
+import progetto_lpo.parser.ast.Sign;
+
+/*
+ * execution of typechecked programs: integer and boolean subexpressions are evaluated on primitive values, hence
+ * intermediate results are neither boxed nor converted through 'Value'; only values stored in variables, printed
+ * or used by pairs are boxed
+ *
+ * the program is not typechecked again: the static type of an operator is that of its result, and the typechecker
+ * run before execution, or the flag of a cached program, guarantees that the operands of '==' have the same type
+ *
+ * the operators of expressions not handled here are evaluated by 'Execute', hence dynamic errors are the same
+ */
+public class TypedExecute extends Execute {
+
+	public TypedExecute() {
+	}
+
+	public TypedExecute(PrintWriter printWriter) {
+		super(printWriter);
+	}
+
+	public TypedExecute(PrintWriter printWriter, Tiering tiering) {
+		super(printWriter, tiering);
+	}
+
+	public TypedExecute(PrintWriter printWriter, Tiering tiering, HashCons hashCons) {
+		super(printWriter, tiering, hashCons);
+	}
+
+	public TypedExecute(PrintWriter printWriter, Tiering tiering, HashCons hashCons, boolean memoize) {
+		super(printWriter, tiering, hashCons, memoize);
+	}
+
+	/*
+	 * the operators of type int and bool are evaluated unboxed; the other expressions, as variables and lookups, are
+	 * evaluated by 'Execute' and converted, which cannot fail in typechecked programs
+	 */
+
+	@Override
+	protected int evalInt(Exp exp) {
+		if (exp instanceof Add add)
+			return evalInt(add.getLeft()) + evalInt(add.getRight());
+		if (exp instanceof Mul mul)
+			return evalInt(mul.getLeft()) * evalInt(mul.getRight());
+		if (exp instanceof Sign sign)
+			return -evalInt(sign.getExp());
+		if (exp instanceof IntLiteral lit)
+			return lit.getValue();
+		return super.evalInt(exp);
+	}
+
+	@Override
+	protected boolean evalBool(Exp exp) {
+		if (exp instanceof And and)
+			return evalBool(and.getLeft()) && evalBool(and.getRight());
+		if (exp instanceof Not not)
+			return !evalBool(not.getExp());
+		if (exp instanceof Eq eq)
+			return equal(eq.getLeft(), eq.getRight());
+		if (exp instanceof BoolLiteral lit)
+			return lit.getValue();
+		return super.evalBool(exp);
+	}
+
+	// whether 'exp' is an operator with a result of type int
+	private static boolean isInt(Exp exp) {
+		return exp instanceof Add || exp instanceof Mul || exp instanceof Sign || exp instanceof IntLiteral;
+	}
+
+	// whether 'exp' is an operator with a result of type bool
+	private static boolean isBool(Exp exp) {
+		return exp instanceof And || exp instanceof Not || exp instanceof Eq || exp instanceof BoolLiteral;
+	}
+
+	// operands of type int or bool are compared unboxed, the type of either one is that of both
+	@Override
+	protected boolean equal(Exp left, Exp right) {
+		if (isInt(left) || isInt(right))
+			return evalInt(left) == evalInt(right);
+		if (isBool(left) || isBool(right))
+			return evalBool(left) == evalBool(right);
+		return left.accept(this).equals(right.accept(this));
+	}
+}
@@ -13,4 +13,8 @@ public interface Value {
 	default PairValue toPair() {
 		throw new InterpreterException("Expecting a pair");
 	}
+
+	default DictValue toDict() {
+		throw new InterpreterException("Expecting a dict");
+	}
 }
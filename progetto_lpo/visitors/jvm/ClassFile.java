@@ -0,0 +1,127 @@
+package progetto_lpo.visitors.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+
+/*
+ * minimal writer of class files with a single static method, for the JDK versions without a class-file API
+ *
+ * the class file version is 49, which is verified by type inference and hence needs no stack map frames
+ */
+final class ClassFile {
+
+	private static final int MAGIC = 0xCAFEBABE;
+	private static final int VERSION = 49;
+	private static final int ACC_PUBLIC = 0x0001, ACC_STATIC = 0x0008, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+	// constant pool tags
+	private static final int UTF8 = 1, INTEGER = 3, CLASS = 7, METHOD_REF = 10, NAME_AND_TYPE = 12;
+
+	private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream pool = new DataOutputStream(poolBytes);
+	private final HashMap<String, Integer> entries = new HashMap<>(); // index of each entry, by tag and content
+	private int poolCount = 1;
+
+	// adds the entry written by 'writer' unless an entry with the same 'key' was already added
+	private int entry(String key, IOAction writer) {
+		final var index = entries.get(key);
+		if (index != null)
+			return index;
+		try {
+			writer.run();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		entries.put(key, poolCount);
+		return poolCount++;
+	}
+
+	private interface IOAction {
+		void run() throws IOException;
+	}
+
+	int utf8(String s) {
+		return entry("U" + s, () -> {
+			pool.writeByte(UTF8);
+			pool.writeUTF(s);
+		});
+	}
+
+	int integer(int value) {
+		return entry("I" + value, () -> {
+			pool.writeByte(INTEGER);
+			pool.writeInt(value);
+		});
+	}
+
+	// 'name' is an internal name, as "java/lang/Object"
+	int classRef(String name) {
+		final var nameIndex = utf8(name);
+		return entry("C" + name, () -> {
+			pool.writeByte(CLASS);
+			pool.writeShort(nameIndex);
+		});
+	}
+
+	int methodRef(String owner, String name, String descriptor) {
+		final var classIndex = classRef(owner);
+		final var nameIndex = utf8(name);
+		final var descriptorIndex = utf8(descriptor);
+		final var nameAndType = entry("N" + name + ":" + descriptor, () -> {
+			pool.writeByte(NAME_AND_TYPE);
+			pool.writeShort(nameIndex);
+			pool.writeShort(descriptorIndex);
+		});
+		return entry("M" + owner + "." + name + ":" + descriptor, () -> {
+			pool.writeByte(METHOD_REF);
+			pool.writeShort(classIndex);
+			pool.writeShort(nameAndType);
+		});
+	}
+
+	/*
+	 * the bytes of the public final class 'className' extending Object, with the public static method 'methodName'
+	 * whose body is 'code'
+	 */
+	byte[] toBytes(String className, String methodName, String descriptor, byte[] code, int maxStack,
+			int maxLocals) {
+		final var thisClass = classRef(className);
+		final var superClass = classRef("java/lang/Object");
+		final var nameIndex = utf8(methodName);
+		final var descriptorIndex = utf8(descriptor);
+		final var codeIndex = utf8("Code");
+		final var bytes = new ByteArrayOutputStream();
+		try (var out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeShort(0);
+			out.writeShort(VERSION);
+			out.writeShort(poolCount);
+			poolBytes.writeTo(out);
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(0); // interfaces
+			out.writeShort(0); // fields
+			out.writeShort(1); // methods
+			out.writeShort(ACC_PUBLIC | ACC_STATIC);
+			out.writeShort(nameIndex);
+			out.writeShort(descriptorIndex);
+			out.writeShort(1); // attributes of the method
+			out.writeShort(codeIndex);
+			out.writeInt(12 + code.length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(code.length);
+			out.write(code);
+			out.writeShort(0); // exception table
+			out.writeShort(0); // attributes of the code
+			out.writeShort(0); // attributes of the class
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,537 @@
+package progetto_lpo.visitors.jvm;
+
+import java.io.PrintWriter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedMap;
+
+import progetto_lpo.parser.ast.Block;
+import progetto_lpo.parser.ast.Exp;
+import progetto_lpo.parser.ast.Prog;
+import progetto_lpo.parser.ast.Stmt;
+import progetto_lpo.parser.ast.StmtSeq;
+import progetto_lpo.parser.ast.Variable;
+import progetto_lpo.visitors.Visitor;
+import progetto_lpo.visitors.execution.Value;
+import progetto_lpo.visitors.optimization.Fuse;
+import progetto_lpo.visitors.resolution.Locals;
+import progetto_lpo.visitors.resolution.Resolve;
+
+/*
+ * compiler from resolved and typechecked programs to JVM bytecode: the program becomes the static method 'run' of
+ * a hidden class, taking the output stream; the visitor returns the representation of the result of expressions,
+ * and null for statements
+ *
+ * integers and booleans live unboxed in JVM locals and on the JVM operand stack, the other values are boxed and
+ * handled by calls to 'JvmSupport', as the operations on dicts and the iteration of for statements; as in 'CompileClosures', a result of a different kind is converted to the one
+ * needed by its parent with the conversions of 'Value', hence dynamic errors are the same as for 'Execute'
+ *
+ * as 'Execute', the compiler runs on the statements fused by 'Fuse': a dict assigned to the variable it is updated
+ * from is owned by the variable and updated in place, until the variable is read
+ *
+ * programs which cannot be compiled are rejected by 'tryCompile()', so that they can be run by another engine
+ */
+public class CompileJvm implements Visitor<CompileJvm.Kind> {
+
+	// representation of values in the generated code
+	enum Kind {
+		INT, BOOL, VALUE
+	}
+
+	// thrown when the program cannot be compiled
+	private static class UnsupportedException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		UnsupportedException(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+	/*
+	 * larger methods are not compiled by the JIT compiler of HotSpot, then the generated code would run slower
+	 * than 'Execute'; this limit also keeps branch offsets within 16 bits
+	 */
+	private static final int MAX_CODE_SIZE = 8000;
+
+	private static final String CLASS_NAME = CompileJvm.class.getPackageName().replace('.', '/') + "/Program";
+	private static final String METHOD_NAME = "run";
+	private static final MethodType METHOD_TYPE = MethodType.methodType(void.class, PrintWriter.class);
+	private static final String SUPPORT = JvmSupport.class.getName().replace('.', '/');
+	private static final String PRINT_WRITER = PrintWriter.class.getName().replace('.', '/');
+	private static final String VALUE = Value.class.descriptorString();
+	private static final String ITERATOR = Iterator.class.descriptorString();
+
+	// JVM opcodes
+	private static final int ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11, LDC = 0x12, LDC_W = 0x13,
+			ILOAD = 0x15, ALOAD = 0x19, ALOAD_0 = 0x2a, ISTORE = 0x36, ASTORE = 0x3a, SWAP = 0x5f, IADD = 0x60,
+			IMUL = 0x68, INEG = 0x74, IXOR = 0x82, IFEQ = 0x99, IF_ICMPNE = 0xa0, GOTO = 0xa7, RETURN = 0xb1,
+			INVOKEVIRTUAL = 0xb6, INVOKESTATIC = 0xb8, WIDE = 0xc4;
+
+	private final ClassFile classFile = new ClassFile();
+	private byte[] code = new byte[256];
+	private int length; // number of bytes in 'code'
+	private int stackSize; // size of the operand stack at the current instruction, in words
+	private int maxStack;
+	private final Locals locals = new Locals();
+	private Kind[] kinds = new Kind[16]; // kind of the locals of the variables declared so far
+
+	/*
+	 * compiles 'prog' after resolving its variables and fusing its statements, and loads it as a hidden class; returns null if the program
+	 * was not typechecked or if the generated method is too large
+	 */
+	public static JvmProgram tryCompile(Prog prog, boolean typechecked) {
+		if (!typechecked)
+			return null;
+		try {
+			final var compiler = new CompileJvm();
+			prog.accept(new Resolve()).accept(new Fuse()).accept(compiler);
+			final var lookup = MethodHandles.lookup().defineHiddenClass(compiler.toBytes(), true);
+			return new JvmProgram(lookup.findStatic(lookup.lookupClass(), METHOD_NAME, METHOD_TYPE));
+		} catch (UnsupportedException | ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	private byte[] toBytes() {
+		if (length > MAX_CODE_SIZE)
+			throw new UnsupportedException("code too large");
+		return classFile.toBytes(CLASS_NAME, METHOD_NAME, METHOD_TYPE.toMethodDescriptorString(),
+				Arrays.copyOf(code, length), maxStack, 1 + locals.size());
+	}
+
+	// code emission
+
+	private void u1(int value) {
+		if (length == code.length)
+			code = Arrays.copyOf(code, length * 2);
+		code[length++] = (byte) value;
+	}
+
+	private void u2(int value) {
+		u1(value >> 8);
+		u1(value);
+	}
+
+	// emits 'opcode', which changes the size of the operand stack by 'stackEffect'
+	private void op(int opcode, int stackEffect) {
+		u1(opcode);
+		stackSize += stackEffect;
+		maxStack = Math.max(maxStack, stackSize);
+	}
+
+	// emits a backward jump to 'target'
+	private void jumpBack(int target) {
+		final var position = length;
+		op(GOTO, 0);
+		u2(target - position);
+	}
+
+	// emits a forward jump whose target is set later by 'patch()'; returns the position of the jump
+	private int jump(int opcode, int stackEffect) {
+		final var position = length;
+		op(opcode, stackEffect);
+		u2(0);
+		return position;
+	}
+
+	// sets the target of the jump at 'position' to the next instruction
+	private void patch(int position) {
+		final var offset = length - position;
+		code[position + 1] = (byte) (offset >> 8);
+		code[position + 2] = (byte) offset;
+	}
+
+	private void pushInt(int value) {
+		if (value >= -1 && value <= 5)
+			op(ICONST_0 + value, 1);
+		else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			op(BIPUSH, 1);
+			u1(value);
+		} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			op(SIPUSH, 1);
+			u2(value);
+		} else {
+			final var index = classFile.integer(value);
+			if (index <= 0xff) {
+				op(LDC, 1);
+				u1(index);
+			} else {
+				op(LDC_W, 1);
+				u2(index);
+			}
+		}
+	}
+
+	// emits the load or store 'opcode' of the JVM local 'index'
+	private void local(int opcode, int index, int stackEffect) {
+		if (index > 0xff) {
+			u1(WIDE);
+			op(opcode, stackEffect);
+			u2(index);
+		} else {
+			op(opcode, stackEffect);
+			u1(index);
+		}
+	}
+
+	// the JVM local of the resolved variable 'var', the first one holds the output stream
+	private int jvmLocal(Variable var) {
+		return 1 + locals.local(var);
+	}
+
+	private void invoke(int opcode, String owner, String name, String descriptor, int stackEffect) {
+		op(opcode, stackEffect);
+		u2(classFile.methodRef(owner, name, descriptor));
+	}
+
+	private void support(String name, String descriptor, int stackEffect) {
+		invoke(INVOKESTATIC, SUPPORT, name, descriptor, stackEffect);
+	}
+
+	// converts the value on top of the stack from 'from' to 'to'
+	private void convert(Kind from, Kind to) {
+		if (from == to)
+			return;
+		if (from == Kind.INT)
+			support("ofInt", "(I)" + VALUE, 0);
+		else if (from == Kind.BOOL)
+			support("ofBool", "(Z)" + VALUE, 0);
+		if (to == Kind.INT)
+			support("toInt", "(" + VALUE + ")I", 0);
+		else if (to == Kind.BOOL)
+			support("toBool", "(" + VALUE + ")Z", 0);
+	}
+
+	// evaluates 'exp' and converts its result to 'kind'
+	private void compile(Exp exp, Kind kind) {
+		convert(exp.accept(this), kind);
+	}
+
+	// loads the variable 'var' without sharing its dict, which stays owned
+	private void load(Variable var) {
+		if (kinds[locals.local(var)] == Kind.VALUE)
+			local(ALOAD, jvmLocal(var), 1);
+		else
+			local(ILOAD, jvmLocal(var), 1);
+	}
+
+	private void store(Variable var) {
+		if (kinds[locals.local(var)] == Kind.VALUE)
+			local(ASTORE, jvmLocal(var), -1);
+		else
+			local(ISTORE, jvmLocal(var), -1);
+	}
+
+	// declares the resolved variable 'var' with a local represented as 'kind'
+	private void declare(Variable var, Kind kind) {
+		final var local = locals.declare(var);
+		if (local >= kinds.length)
+			kinds = Arrays.copyOf(kinds, Math.max(local + 1, kinds.length * 2));
+		kinds[local] = kind;
+	}
+
+	// emits the code pushing 1 if the jump at 'toFalse' is not taken, 0 otherwise
+	private void pushCondition(int... toFalse) {
+		op(ICONST_0 + 1, 1);
+		final var toEnd = jump(GOTO, -1);
+		for (var position : toFalse)
+			patch(position);
+		op(ICONST_0, 1);
+		patch(toEnd);
+	}
+
+	// programs
+
+	@Override
+	public Kind visitMyLangProg(StmtSeq stmtSeq) {
+		stmtSeq.accept(this);
+		op(RETURN, 0);
+		return null;
+	}
+
+	// statements
+
+	@Override
+	public Kind visitAssignStmt(Variable var, Exp exp) {
+		compile(exp, kinds[locals.local(var)]);
+		store(var);
+		return null;
+	}
+
+	@Override
+	public Kind visitPrintStmt(Exp exp) {
+		op(ALOAD_0, 1);
+		final var kind = exp.accept(this);
+		final var descriptor = switch (kind) {
+		case INT -> "(I)V";
+		case BOOL -> "(Z)V";
+		case VALUE -> "(Ljava/lang/Object;)V";
+		};
+		invoke(INVOKEVIRTUAL, PRINT_WRITER, "println", descriptor, -2);
+		return null;
+	}
+
+	@Override
+	public Kind visitVarStmt(Variable var, Exp exp) {
+		declare(var, exp.accept(this));
+		store(var);
+		return null;
+	}
+
+	// the dict of the variable is updated in place if the variable owns it, as in 'Execute'
+
+	@Override
+	public Kind visitDictUpdateStmt(Variable var, Exp index, Exp value) {
+		load(var);
+		compile(index, Kind.INT);
+		compile(value, Kind.VALUE);
+		support("putOwned", "(" + VALUE + "I" + VALUE + ")" + VALUE, -2);
+		store(var);
+		return null;
+	}
+
+	@Override
+	public Kind visitDictDeleteStmt(Variable var, Exp index) {
+		load(var);
+		compile(index, Kind.INT);
+		support("removeOwned", "(" + VALUE + "I)" + VALUE, -1);
+		store(var);
+		return null;
+	}
+
+	@Override
+	public Kind visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		compile(exp, Kind.BOOL);
+		final var toElse = jump(IFEQ, -1);
+		thenBlock.accept(this);
+		if (elseBlock == null)
+			patch(toElse);
+		else {
+			final var toEnd = jump(GOTO, 0);
+			patch(toElse);
+			elseBlock.accept(this);
+			patch(toEnd);
+		}
+		return null;
+	}
+
+	@Override
+	public Kind visitBlock(StmtSeq stmtSeq) {
+		locals.enterScope();
+		stmtSeq.accept(this);
+		locals.exitScope();
+		return null;
+	}
+
+	/*
+	 * the loop variable is declared in a scope enclosing the block, as in 'Resolve', and the iterator of the entries
+	 * of the dict is kept in the local following it; the operand stack is empty at the head of the loop, so that
+	 * HotSpot can compile it on-stack
+	 */
+	@Override
+	public Kind visitForStmt(Variable var, Exp exp, Block block) {
+		compile(exp, Kind.VALUE);
+		support("entries", "(" + VALUE + ")" + ITERATOR, 0);
+		locals.enterScope();
+		declare(var, Kind.VALUE);
+		locals.reserve(var.slot() + 2);
+		final var entries = jvmLocal(var) + 1;
+		local(ASTORE, entries, -1);
+		final var loop = length;
+		local(ALOAD, entries, 1);
+		support("hasNext", "(" + ITERATOR + ")Z", 0);
+		final var toEnd = jump(IFEQ, -1);
+		local(ALOAD, entries, 1);
+		support("next", "(" + ITERATOR + ")" + VALUE, 0);
+		store(var);
+		block.accept(this);
+		jumpBack(loop);
+		patch(toEnd);
+		locals.exitScope();
+		return null;
+	}
+
+	// sequences of statements
+
+	@Override
+	public Kind visitEmptyStmtSeq() {
+		return null;
+	}
+
+	@Override
+	public Kind visitNonEmptyStmtSeq(Stmt first, StmtSeq rest) {
+		first.accept(this);
+		rest.accept(this);
+		return null;
+	}
+
+	@Override
+	public Kind visitArrayStmtSeq(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			stmt.accept(this);
+		return null;
+	}
+
+	// expressions
+
+	@Override
+	public Kind visitAdd(Exp left, Exp right) {
+		compile(left, Kind.INT);
+		compile(right, Kind.INT);
+		op(IADD, -1);
+		return Kind.INT;
+	}
+
+	@Override
+	public Kind visitIntLiteral(int value) {
+		pushInt(value);
+		return Kind.INT;
+	}
+
+	@Override
+	public Kind visitMul(Exp left, Exp right) {
+		compile(left, Kind.INT);
+		compile(right, Kind.INT);
+		op(IMUL, -1);
+		return Kind.INT;
+	}
+
+	@Override
+	public Kind visitSign(Exp exp) {
+		compile(exp, Kind.INT);
+		op(INEG, 0);
+		return Kind.INT;
+	}
+
+	// the value may be copied elsewhere, hence a dict is no longer owned by the variable
+	@Override
+	public Kind visitVariable(Variable var) {
+		load(var);
+		final var kind = kinds[locals.local(var)];
+		if (kind == Kind.VALUE)
+			support("read", "(" + VALUE + ")" + VALUE, 0);
+		return kind;
+	}
+
+	@Override
+	public Kind visitNot(Exp exp) {
+		compile(exp, Kind.BOOL);
+		op(ICONST_0 + 1, 1);
+		op(IXOR, -1);
+		return Kind.BOOL;
+	}
+
+	@Override
+	public Kind visitAnd(Exp left, Exp right) {
+		compile(left, Kind.BOOL);
+		final var leftFalse = jump(IFEQ, -1);
+		compile(right, Kind.BOOL);
+		final var rightFalse = jump(IFEQ, -1);
+		pushCondition(leftFalse, rightFalse);
+		return Kind.BOOL;
+	}
+
+	@Override
+	public Kind visitBoolLiteral(boolean value) {
+		op(value ? ICONST_0 + 1 : ICONST_0, 1);
+		return Kind.BOOL;
+	}
+
+	// values of different kinds are compared boxed
+	@Override
+	public Kind visitEq(Exp left, Exp right) {
+		final var leftKind = left.accept(this);
+		if (leftKind == Kind.VALUE) {
+			compile(right, Kind.VALUE);
+			support("equal", "(" + VALUE + VALUE + ")Z", -1);
+			return Kind.BOOL;
+		}
+		final var rightKind = right.accept(this);
+		if (rightKind == leftKind) {
+			pushCondition(jump(IF_ICMPNE, -2));
+			return Kind.BOOL;
+		}
+		// boxing cannot fail, hence the left operand can be boxed after the evaluation of the right one
+		convert(rightKind, Kind.VALUE);
+		op(SWAP, 0);
+		convert(leftKind, Kind.VALUE);
+		op(SWAP, 0);
+		support("equal", "(" + VALUE + VALUE + ")Z", -1);
+		return Kind.BOOL;
+	}
+
+	@Override
+	public Kind visitPairLit(Exp left, Exp right) {
+		compile(left, Kind.VALUE);
+		compile(right, Kind.VALUE);
+		support("pair", "(" + VALUE + VALUE + ")" + VALUE, -1);
+		return Kind.VALUE;
+	}
+
+	@Override
+	public Kind visitFst(Exp exp) {
+		compile(exp, Kind.VALUE);
+		support("fst", "(" + VALUE + ")" + VALUE, 0);
+		return Kind.VALUE;
+	}
+
+	@Override
+	public Kind visitSnd(Exp exp) {
+		compile(exp, Kind.VALUE);
+		support("snd", "(" + VALUE + ")" + VALUE, 0);
+		return Kind.VALUE;
+	}
+
+	// dicts are evaluated first, then keys and, for updates, values, as in 'Execute'
+
+	@Override
+	public Kind visitDict(Exp key, Exp value) {
+		compile(key, Kind.INT);
+		compile(value, Kind.VALUE);
+		support("dict", "(I" + VALUE + ")" + VALUE, -1);
+		return Kind.VALUE;
+	}
+
+	@Override
+	public Kind visitDictLit(SortedMap<Integer, Exp> entries) {
+		support("emptyDict", "()" + VALUE, 1);
+		for (var entry : entries.entrySet()) {
+			pushInt(entry.getKey());
+			compile(entry.getValue(), Kind.VALUE);
+			support("put", "(" + VALUE + "I" + VALUE + ")" + VALUE, -2);
+		}
+		return Kind.VALUE;
+	}
+
+	@Override
+	public Kind visitDictUpdate(Exp dict, Exp exp, Exp value) {
+		compile(dict, Kind.VALUE);
+		compile(exp, Kind.INT);
+		compile(value, Kind.VALUE);
+		support("put", "(" + VALUE + "I" + VALUE + ")" + VALUE, -2);
+		return Kind.VALUE;
+	}
+
+	@Override
+	public Kind visitDictDelete(Exp dict, Exp index) {
+		compile(dict, Kind.VALUE);
+		compile(index, Kind.INT);
+		support("remove", "(" + VALUE + "I)" + VALUE, -1);
+		return Kind.VALUE;
+	}
+
+	// a lookup does not copy its dict, which stays owned if read from a variable
+	@Override
+	public Kind visitDictAccess(Exp dict, Exp index) {
+		if (dict instanceof Variable var && kinds[locals.local(var)] == Kind.VALUE)
+			load(var);
+		else
+			compile(dict, Kind.VALUE);
+		compile(index, Kind.INT);
+		support("get", "(" + VALUE + "I)" + VALUE, -1);
+		return Kind.VALUE;
+	}
+}
@@ -0,0 +1,27 @@
+package progetto_lpo.visitors.jvm;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.PrintWriter;
+import java.lang.invoke.MethodHandle;
+
+/* program compiled by 'CompileJvm', 'run' is the handle of its static method taking the output stream */
+public record JvmProgram(MethodHandle run) {
+
+	public JvmProgram {
+		requireNonNull(run);
+	}
+
+	// runs the program printing on 'out'; dynamic errors are thrown as 'InterpreterException', as 'Execute' does
+	public void run(PrintWriter out) {
+		try {
+			run.invokeExact(requireNonNull(out));
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) { // the generated method throws no checked exception
+			throw new IllegalStateException(e);
+		} finally {
+			out.flush();
+		}
+	}
+}
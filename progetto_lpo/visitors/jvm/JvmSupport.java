@@ -0,0 +1,102 @@
+package progetto_lpo.visitors.jvm;
+
+import java.util.Iterator;
+
+import progetto_lpo.visitors.execution.BoolValue;
+import progetto_lpo.visitors.execution.DictValue;
+import progetto_lpo.visitors.execution.IntValue;
+import progetto_lpo.visitors.execution.PairValue;
+import progetto_lpo.visitors.execution.Value;
+
+/*
+ * library called by the code generated by 'CompileJvm' for the operations on boxed values; its methods are small
+ * enough to be inlined by the JIT compiler
+ */
+public final class JvmSupport {
+
+	private JvmSupport() {
+	}
+
+	public static Value ofInt(int value) {
+		return IntValue.of(value);
+	}
+
+	public static Value ofBool(boolean value) {
+		return BoolValue.of(value);
+	}
+
+	public static int toInt(Value value) {
+		return value.toInt();
+	}
+
+	public static boolean toBool(Value value) {
+		return value.toBool();
+	}
+
+	public static boolean equal(Value left, Value right) {
+		return left.equals(right);
+	}
+
+	public static Value pair(Value fst, Value snd) {
+		return new PairValue(fst, snd);
+	}
+
+	public static Value fst(Value pair) {
+		return pair.toPair().getFstVal();
+	}
+
+	public static Value snd(Value pair) {
+		return pair.toPair().getSndVal();
+	}
+
+	// the value of a variable, which may be copied elsewhere, hence its dict is no longer owned, as in 'Execute'
+	public static Value read(Value value) {
+		return DictValue.shared(value);
+	}
+
+	// dicts, with the same evaluation of the dict before the key as in 'Execute'
+
+	public static Value emptyDict() {
+		return DictValue.EMPTY;
+	}
+
+	public static Value dict(int key, Value value) {
+		return DictValue.of(key, value);
+	}
+
+	public static Value put(Value dict, int key, Value value) {
+		return dict.toDict().put(key, value);
+	}
+
+	public static Value remove(Value dict, int key) {
+		return dict.toDict().remove(key);
+	}
+
+	// the dict of a variable which is assigned the result, see 'DictValue.putOwned()'
+
+	public static Value putOwned(Value dict, int key, Value value) {
+		return dict.toDict().putOwned(key, value);
+	}
+
+	public static Value removeOwned(Value dict, int key) {
+		return dict.toDict().removeOwned(key);
+	}
+
+	public static Value get(Value dict, int key) {
+		return dict.toDict().get(key);
+	}
+
+	// the entries of 'dict' iterated by for statements, as (key,value) pairs in key order
+
+	public static Iterator<PairValue> entries(Value dict) {
+		return dict.toDict().iterator();
+	}
+
+	public static boolean hasNext(Iterator<PairValue> entries) {
+		return entries.hasNext();
+	}
+
+	public static Value next(Iterator<PairValue> entries) {
+		return entries.next();
+	}
+}
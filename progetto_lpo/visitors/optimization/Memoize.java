@@ -0,0 +1,316 @@
+package progetto_lpo.visitors.optimization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import progetto_lpo.parser.ast.*;
+import progetto_lpo.visitors.Rebuild;
+
+/*
+ * memoization pass for resolved programs, to be run after 'Fuse':
+ *
+ * - loop-invariant code motion: the expressions in the block of a for statement which only depend on variables
+ *   declared outside the loop and not assigned in its block are memoized lazily, the slots of the loop are cleared
+ *   each time it starts; hence each invariant expression is evaluated at most once per execution of the loop, when
+ *   it is first needed, and an expression which fails still fails at the same point
+ * - common subexpression elimination: the repeated subexpressions of the expressions of a statement are evaluated
+ *   once, by their first occurrence in evaluation order, provided that it is always evaluated
+ *
+ * expressions have no side effects, and equal expressions of the same statement, or invariant in the same loop,
+ * refer to the same variables, hence they can be compared structurally: each node gets the id of its shape, made of
+ * its class, its literal value, variable or memo slot and the ids of its children; the id of a node is computed
+ * once, hence the pass takes linear time in the size of the program
+ */
+public class Memoize extends Rebuild {
+
+	// for statement being rebuilt
+	private static class Loop {
+		final int depth; // depth of the scope of the loop variable
+		final Set<Variable> assigned = new HashSet<>(); // variables assigned in the block, compared by lexical address
+		final Map<Integer, Integer> memos = new HashMap<>(); // slots of the invariant expressions, by id
+		final Map<Exp, Boolean> invariant = new IdentityHashMap<>(); // invariance of the expressions checked so far
+		final int firstMemo;
+
+		Loop(int depth, int firstMemo) {
+			this.depth = depth;
+			this.firstMemo = firstMemo;
+		}
+	}
+
+	private final List<Loop> loops = new ArrayList<>(); // enclosing loops, the outermost first
+	private int slots; // number of memo slots used so far
+	private final Map<Exp, Integer> ids = new IdentityHashMap<>(); // ids of the expressions visited so far
+	private final Map<List<Object>, Integer> shapes = new HashMap<>(); // ids of the shapes found so far
+
+	// the number of memo slots needed by the rebuilt program
+	public int slots() {
+		return slots;
+	}
+
+	private static boolean isTrivial(Exp exp) {
+		return exp instanceof AtomicLiteral || exp instanceof Variable || exp instanceof MemoExp;
+	}
+
+	// adds the variables assigned by the statements of 'stmtSeq' to 'vars'
+	private static void assigned(StmtSeq stmtSeq, Set<Variable> vars) {
+		switch (stmtSeq) {
+		case EmptyStmtSeq s -> {
+		}
+		case NonEmptyStmtSeq s -> {
+			assigned(s.getFirst(), vars);
+			assigned(s.getRest(), vars);
+		}
+		case ArrayStmtSeq s -> s.getStmts().forEach(stmt -> assigned(stmt, vars));
+		}
+	}
+
+	private static void assigned(Stmt stmt, Set<Variable> vars) {
+		switch (stmt) {
+		case AssignStmt s -> vars.add(s.getVar());
+		case IncStmt s -> vars.add(s.getVar());
+		case DictUpdateStmt s -> vars.add(s.getVar());
+		case DictDeleteStmt s -> vars.add(s.getVar());
+		case IfStmt s -> {
+			assigned(s.getThenBlock(), vars);
+			if (s.getElseBlock() != null)
+				assigned(s.getElseBlock(), vars);
+		}
+		case Block s -> assigned(s.getStmtSeq(), vars);
+		case ForStmt s -> assigned(s.getBlock(), vars);
+		case MemoForStmt s -> assigned(s.getBlock(), vars);
+		case VarStmt s -> {
+		}
+		case PrintStmt s -> {
+		}
+		case PrintEqStmt s -> {
+		}
+		}
+	}
+
+	// the structural id of 'exp': equal expressions, and only them, have the same id
+	private int id(Exp exp) {
+		var id = ids.get(exp);
+		if (id == null) {
+			id = shapes.computeIfAbsent(shape(exp), key -> shapes.size());
+			ids.put(exp, id);
+		}
+		return id;
+	}
+
+	private List<Object> shape(Exp exp) {
+		return switch (exp) {
+		case BinaryOp e -> List.of(e.getClass(), id(e.getLeft()), id(e.getRight()));
+		case UnaryOp e -> List.of(e.getClass(), id(e.getExp()));
+		case Dict e -> List.of(Dict.class, id(e.getKey()), id(e.getValue()));
+		case DictLit e -> {
+			final var shape = new ArrayList<Object>();
+			shape.add(DictLit.class);
+			e.getEntries().forEach((key, value) -> {
+				shape.add(key);
+				shape.add(id(value));
+			});
+			yield shape;
+		}
+		case DictUpdate e -> List.of(DictUpdate.class, id(e.getDict()), id(e.getIndex()), id(e.getValue()));
+		case DictDelete e -> List.of(DictDelete.class, id(e.getDict()), id(e.getIndex()));
+		case DictAccess e -> List.of(DictAccess.class, id(e.getDict()), id(e.getIndex()));
+		case AtomicLiteral<?> e -> List.of(e.getClass(), e.getValue());
+		// variables are compared by lexical address
+		case Variable e -> List.of(Variable.class, e);
+		case MemoExp e -> List.of(MemoExp.class, e.getSlot(), e.getMode());
+		};
+	}
+
+	// whether 'exp' has the same value in all the iterations of 'loop', computed once per node
+	private static boolean isInvariant(Exp exp, Loop loop) {
+		var invariant = loop.invariant.get(exp);
+		if (invariant == null) {
+			invariant = checkInvariant(exp, loop);
+			loop.invariant.put(exp, invariant);
+		}
+		return invariant;
+	}
+
+	private static boolean checkInvariant(Exp exp, Loop loop) {
+		return switch (exp) {
+		case Variable var -> var.depth() != Variable.UNRESOLVED && var.depth() < loop.depth
+				&& !loop.assigned.contains(var);
+		case AtomicLiteral<?> e -> true;
+		case BinaryOp e -> isInvariant(e.getLeft(), loop) && isInvariant(e.getRight(), loop);
+		case UnaryOp e -> isInvariant(e.getExp(), loop);
+		case Dict e -> isInvariant(e.getKey(), loop) && isInvariant(e.getValue(), loop);
+		case DictLit e -> e.getEntries().values().stream().allMatch(value -> isInvariant(value, loop));
+		case DictUpdate e -> isInvariant(e.getDict(), loop) && isInvariant(e.getIndex(), loop)
+				&& isInvariant(e.getValue(), loop);
+		case DictDelete e -> isInvariant(e.getDict(), loop) && isInvariant(e.getIndex(), loop);
+		case DictAccess e -> isInvariant(e.getDict(), loop) && isInvariant(e.getIndex(), loop);
+		case MemoExp e -> false;
+		};
+	}
+
+	// the non-trivial invariant expressions are memoized in the outermost loop they are invariant in
+	@Override
+	protected Exp rebuild(Exp exp) {
+		if (!isTrivial(exp))
+			for (var loop : loops)
+				if (isInvariant(exp, loop)) {
+					final var slot = loop.memos.computeIfAbsent(id(exp), key -> slots++);
+					return new MemoExp(exp, slot, MemoExp.Mode.LAZY);
+				}
+		return super.rebuild(exp);
+	}
+
+	private Stmt rebuildLoop(Variable var, Exp exp, Block block) {
+		final var loop = new Loop(var.depth(), slots);
+		assigned(block, loop.assigned);
+		loop.assigned.add(var);
+		final var newExp = eliminate(rebuild(exp))[0];
+		loops.add(loop);
+		final var newBlock = rebuild(block);
+		loops.remove(loops.size() - 1);
+		if (loop.memos.isEmpty())
+			return new ForStmt(var, newExp, newBlock);
+		return new MemoForStmt(var, newExp, newBlock, loop.firstMemo, slots - loop.firstMemo);
+	}
+
+	@Override
+	public Stmt visitForStmt(Variable var, Exp exp, Block block) {
+		return rebuildLoop(var, exp, block);
+	}
+
+	@Override
+	public Stmt visitMemoForStmt(Variable var, Exp exp, Block block, int firstMemo, int memoCount) {
+		throw new IllegalStateException("Program already memoized");
+	}
+
+	// common subexpressions of the statements
+
+	// counts the non-trivial subexpressions of 'exp' not memoized yet
+	private void count(Exp exp, Map<Integer, Integer> counts) {
+		switch (exp) {
+		case BinaryOp e -> {
+			count(e.getLeft(), counts);
+			count(e.getRight(), counts);
+		}
+		case UnaryOp e -> count(e.getExp(), counts);
+		case Dict e -> {
+			count(e.getKey(), counts);
+			count(e.getValue(), counts);
+		}
+		case DictLit e -> e.getEntries().values().forEach(value -> count(value, counts));
+		case DictUpdate e -> {
+			count(e.getDict(), counts);
+			count(e.getIndex(), counts);
+			count(e.getValue(), counts);
+		}
+		case DictDelete e -> {
+			count(e.getDict(), counts);
+			count(e.getIndex(), counts);
+		}
+		case DictAccess e -> {
+			count(e.getDict(), counts);
+			count(e.getIndex(), counts);
+		}
+		case AtomicLiteral<?> e -> {
+			return;
+		}
+		case Variable e -> {
+			return;
+		}
+		case MemoExp e -> {
+			return;
+		}
+		}
+		counts.merge(id(exp), 1, Integer::sum);
+	}
+
+	/*
+	 * rebuilds the expressions of a statement, in evaluation order; the first occurrence of a repeated subexpression
+	 * stores its value, the following ones load it
+	 */
+	private class Eliminate extends Rebuild {
+		private final Map<Integer, Integer> counts = new HashMap<>(); // occurrences of the subexpressions, by id
+		private final Map<Integer, Integer> stored = new HashMap<>(); // slots of the subexpressions stored so far
+		private boolean conditional; // whether the current subexpression may not be evaluated
+
+		// the right operand of '&&' may not be evaluated, hence occurrences there cannot store values
+		@Override
+		protected Exp rebuild(Exp exp) {
+			if (isTrivial(exp))
+				return exp;
+			final var key = id(exp);
+			final var slot = stored.get(key);
+			if (slot != null)
+				return new MemoExp(exp, slot, MemoExp.Mode.LOAD);
+			final var newExp = super.rebuild(exp);
+			if (conditional || counts.get(key) < 2)
+				return newExp;
+			stored.put(key, slots);
+			return new MemoExp(newExp, slots++, MemoExp.Mode.STORE);
+		}
+
+		@Override
+		public Exp visitAnd(Exp left, Exp right) {
+			final var newLeft = rebuild(left);
+			final var wasConditional = conditional;
+			conditional = true;
+			final var newRight = rebuild(right);
+			conditional = wasConditional;
+			return new And(newLeft, newRight);
+		}
+	}
+
+	// the expressions 'exps' of a statement, in evaluation order, with their common subexpressions eliminated
+	private Exp[] eliminate(Exp... exps) {
+		final var eliminate = new Eliminate();
+		for (var exp : exps)
+			count(exp, eliminate.counts);
+		final var newExps = new Exp[exps.length];
+		for (var i = 0; i < exps.length; i++)
+			newExps[i] = eliminate.rebuild(exps[i]);
+		return newExps;
+	}
+
+	@Override
+	public Stmt visitAssignStmt(Variable var, Exp exp) {
+		return new AssignStmt(var, eliminate(rebuild(exp))[0]);
+	}
+
+	@Override
+	public Stmt visitPrintStmt(Exp exp) {
+		return new PrintStmt(eliminate(rebuild(exp))[0]);
+	}
+
+	@Override
+	public Stmt visitVarStmt(Variable var, Exp exp) {
+		return new VarStmt(var, eliminate(rebuild(exp))[0]);
+	}
+
+	@Override
+	public Stmt visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		return new IfStmt(eliminate(rebuild(exp))[0], rebuild(thenBlock),
+				elseBlock != null ? rebuild(elseBlock) : null);
+	}
+
+	@Override
+	public Stmt visitDictUpdateStmt(Variable var, Exp index, Exp value) {
+		final var newExps = eliminate(rebuild(index), rebuild(value));
+		return new DictUpdateStmt(var, newExps[0], newExps[1]);
+	}
+
+	@Override
+	public Stmt visitDictDeleteStmt(Variable var, Exp index) {
+		return new DictDeleteStmt(var, eliminate(rebuild(index))[0]);
+	}
+
+	@Override
+	public Stmt visitPrintEqStmt(Exp left, Exp right) {
+		final var newExps = eliminate(rebuild(left), rebuild(right));
+		return new PrintEqStmt(newExps[0], newExps[1]);
+	}
+}
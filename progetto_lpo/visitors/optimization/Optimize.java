@@ -0,0 +1,191 @@
+package progetto_lpo.visitors.optimization;
+
+import java.util.TreeMap;
+
+import progetto_lpo.parser.ast.*;
+import progetto_lpo.visitors.Rebuild;
+
+/*
+ * AST-to-AST optimizer, to be run on typechecked programs only; a new tree is built where constant subexpressions
+ * are folded into literals and the branches of 'if' statements with constant condition are removed
+ *
+ * constants are integer and boolean literals, pairs of constants and dict literals; subexpressions which are
+ * dropped by folding must be constants, so that no dynamic error of the original program is lost
+ */
+public class Optimize extends Rebuild {
+
+	private static boolean isConstant(Exp exp) {
+		return exp instanceof AtomicLiteral || exp instanceof DictLit
+				|| exp instanceof PairLit pair && isConstant(pair.getLeft()) && isConstant(pair.getRight());
+	}
+
+	// equality of constants, consistent with the equality of the values they evaluate to
+	private static boolean constEquals(Exp left, Exp right) {
+		if (left instanceof AtomicLiteral<?> l && right instanceof AtomicLiteral<?> r)
+			return l.getValue().equals(r.getValue());
+		if (left instanceof PairLit l && right instanceof PairLit r)
+			return constEquals(l.getLeft(), r.getLeft()) && constEquals(l.getRight(), r.getRight());
+		if (left instanceof DictLit l && right instanceof DictLit r) {
+			final var lEntries = l.getEntries();
+			final var rEntries = r.getEntries();
+			if (!lEntries.keySet().equals(rEntries.keySet()))
+				return false;
+			for (var entry : lEntries.entrySet())
+				if (!constEquals(entry.getValue(), rEntries.get(entry.getKey())))
+					return false;
+			return true;
+		}
+		return false;
+	}
+
+	// the integer value of 'exp', if it is a literal, null otherwise
+	private static Integer intConst(Exp exp) {
+		return exp instanceof IntLiteral lit ? lit.getValue() : null;
+	}
+
+	// the boolean value of 'exp', if it is a literal, null otherwise
+	private static Boolean boolConst(Exp exp) {
+		return exp instanceof BoolLiteral lit ? lit.getValue() : null;
+	}
+
+	// statements; 'if' statements whose condition is false and with no else branch are removed
+
+	// blocks are kept in place of 'if' statements with constant condition, since they open a new scope
+	@Override
+	public Stmt visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		final var cond = rebuild(exp);
+		final var constCond = boolConst(cond);
+		if (constCond == null)
+			return new IfStmt(cond, rebuild(thenBlock), elseBlock != null ? rebuild(elseBlock) : null);
+		if (constCond)
+			return rebuild(thenBlock);
+		return elseBlock != null ? rebuild(elseBlock) : null;
+	}
+
+	// expressions
+
+	@Override
+	public Exp visitAdd(Exp left, Exp right) {
+		final var optLeft = rebuild(left);
+		final var optRight = rebuild(right);
+		final var l = intConst(optLeft);
+		final var r = intConst(optRight);
+		return l != null && r != null ? new IntLiteral(l + r) : new Add(optLeft, optRight);
+	}
+
+	@Override
+	public Exp visitMul(Exp left, Exp right) {
+		final var optLeft = rebuild(left);
+		final var optRight = rebuild(right);
+		final var l = intConst(optLeft);
+		final var r = intConst(optRight);
+		return l != null && r != null ? new IntLiteral(l * r) : new Mul(optLeft, optRight);
+	}
+
+	@Override
+	public Exp visitSign(Exp exp) {
+		final var optExp = rebuild(exp);
+		final var n = intConst(optExp);
+		return n != null ? new IntLiteral(-n) : new Sign(optExp);
+	}
+
+	@Override
+	public Exp visitNot(Exp exp) {
+		final var optExp = rebuild(exp);
+		final var b = boolConst(optExp);
+		return b != null ? new BoolLiteral(!b) : new Not(optExp);
+	}
+
+	// the right operand is dropped only if it is a constant, since it is not evaluated when the left one is false
+	@Override
+	public Exp visitAnd(Exp left, Exp right) {
+		final var optLeft = rebuild(left);
+		final var l = boolConst(optLeft);
+		if (l != null && !l)
+			return optLeft;
+		final var optRight = rebuild(right);
+		if (l != null)
+			return optRight;
+		final var r = boolConst(optRight);
+		return r != null && r ? optLeft : new And(optLeft, optRight);
+	}
+
+	@Override
+	public Exp visitEq(Exp left, Exp right) {
+		final var optLeft = rebuild(left);
+		final var optRight = rebuild(right);
+		if (isConstant(optLeft) && isConstant(optRight))
+			return new BoolLiteral(constEquals(optLeft, optRight));
+		return new Eq(optLeft, optRight);
+	}
+
+	@Override
+	public Exp visitFst(Exp exp) {
+		final var optExp = rebuild(exp);
+		if (optExp instanceof PairLit pair && isConstant(pair.getRight()))
+			return pair.getLeft();
+		return new Fst(optExp);
+	}
+
+	@Override
+	public Exp visitSnd(Exp exp) {
+		final var optExp = rebuild(exp);
+		if (optExp instanceof PairLit pair && isConstant(pair.getLeft()))
+			return pair.getRight();
+		return new Snd(optExp);
+	}
+
+	// dicts; chains of updates and deletions of constant keys over dict literals are folded into a single literal
+
+	@Override
+	public Exp visitDict(Exp key, Exp value) {
+		final var optKey = rebuild(key);
+		final var optValue = rebuild(value);
+		final var k = intConst(optKey);
+		if (k == null || !isConstant(optValue))
+			return new Dict(optKey, optValue);
+		final var entries = new TreeMap<Integer, Exp>();
+		entries.put(k, optValue);
+		return new DictLit(entries);
+	}
+
+	@Override
+	public Exp visitDictUpdate(Exp dict, Exp exp, Exp value) {
+		final var optDict = rebuild(dict);
+		final var optExp = rebuild(exp);
+		final var optValue = rebuild(value);
+		final var k = intConst(optExp);
+		if (!(optDict instanceof DictLit lit) || k == null || !isConstant(optValue))
+			return new DictUpdate(optDict, optExp, optValue);
+		final var entries = new TreeMap<>(lit.getEntries());
+		entries.put(k, optValue);
+		return new DictLit(entries);
+	}
+
+	/*
+	 * keys which are not in the dict are not folded, to keep the dynamic error; neither is the last key, since the
+	 * type of the values of an empty dict literal is unknown
+	 */
+	@Override
+	public Exp visitDictDelete(Exp dict, Exp index) {
+		final var optDict = rebuild(dict);
+		final var optIndex = rebuild(index);
+		final var k = intConst(optIndex);
+		if (!(optDict instanceof DictLit lit) || k == null || !lit.getEntries().containsKey(k)
+				|| lit.getEntries().size() == 1)
+			return new DictDelete(optDict, optIndex);
+		final var entries = new TreeMap<>(lit.getEntries());
+		entries.remove(k);
+		return new DictLit(entries);
+	}
+
+	@Override
+	public Exp visitDictAccess(Exp dict, Exp index) {
+		final var optDict = rebuild(dict);
+		final var optIndex = rebuild(index);
+		final var k = intConst(optIndex);
+		if (optDict instanceof DictLit lit && k != null && lit.getEntries().containsKey(k))
+			return lit.getEntries().get(k);
+		return new DictAccess(optDict, optIndex);
+	}
+}
@@ -0,0 +1,61 @@
+package progetto_lpo.visitors.resolution;
+
+import java.util.Arrays;
+
+import progetto_lpo.parser.ast.Variable;
+
+/*
+ * flattens the lexical addresses of resolved variables into indexes of a single array of locals, for the engines
+ * which do not represent scopes at run time; scopes must be entered and exited in the same order as 'Resolve' did
+ *
+ * the variable at (depth, slot) is at index 'bases[depth] + slot', where each scope starts after the variables of
+ * the enclosing scopes declared so far; hence scopes which are not active at the same time share their locals
+ */
+public class Locals {
+
+	private int[] bases = new int[16]; // first local of the scope at each depth
+	private int[] declared = new int[16]; // number of variables declared so far in the scope at each depth
+	private int depth;
+	private int size; // number of locals needed so far
+
+	public void enterScope() {
+		final var base = bases[depth] + declared[depth];
+		if (++depth == bases.length) {
+			bases = Arrays.copyOf(bases, depth * 2);
+			declared = Arrays.copyOf(declared, depth * 2);
+		}
+		bases[depth] = base;
+		declared[depth] = 0;
+	}
+
+	public void exitScope() {
+		depth--;
+	}
+
+	/*
+	 * reserves the locals of the first 'count' slots of the current scope, for variables declared by code which is
+	 * not compiled, as the scopes enclosing a compiled loop
+	 */
+	public void reserve(int count) {
+		declared[depth] = count;
+		size = Math.max(size, bases[depth] + count);
+	}
+
+	// declares the resolved variable 'var' in the current scope, returns its local
+	public int declare(Variable var) {
+		declared[depth] = var.slot() + 1;
+		final var local = local(var);
+		size = Math.max(size, local + 1);
+		return local;
+	}
+
+	// the local of the resolved variable 'var'
+	public int local(Variable var) {
+		return bases[var.depth()] + var.slot();
+	}
+
+	// the number of locals needed by the scopes visited so far
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,113 @@
+package progetto_lpo.visitors.resolution;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import progetto_lpo.environments.EnvironmentException;
+import progetto_lpo.environments.GenEnvironment;
+import progetto_lpo.parser.ast.*;
+import progetto_lpo.visitors.Rebuild;
+
+/*
+ * resolution pass annotating the occurrences of variables with their lexical address; scopes are visited in the
+ * same order as the dynamic semantics enters them, hence each occurrence refers to the same declaration it is bound
+ * to at run time
+ *
+ * the pass does not fail: undeclared variables and declarations of variables already declared in the same scope are
+ * left unresolved, so that errors are still reported at run time when the typechecker is not used
+ */
+public class Resolve extends Rebuild {
+
+	private final GenEnvironment<Variable> env = new GenEnvironment<>(); // resolved declaration of each variable
+	private int depth; // nesting depth of the current scope
+	private int[] slots = new int[16]; // number of variables declared so far in the current scope at each depth
+	/*
+	 * resolved copies of each variable interned by the parser, indexed by depth and slot: declarations of the same
+	 * variable at the same lexical address, as in sibling blocks, share the same copy
+	 */
+	private final Map<Variable, Variable[][]> addresses = new HashMap<>();
+
+	private void enterScope() {
+		env.enterScope();
+		if (++depth == slots.length)
+			slots = Arrays.copyOf(slots, depth * 2);
+		slots[depth] = 0;
+	}
+
+	private void exitScope() {
+		env.exitScope();
+		depth--;
+	}
+
+	// the copy of 'var' at the lexical address (depth, slot), allocated only for the first declaration there
+	private Variable resolved(Variable var, int slot) {
+		var byDepth = addresses.get(var);
+		if (byDepth == null || depth >= byDepth.length) {
+			byDepth = byDepth == null ? new Variable[depth + 1][] : Arrays.copyOf(byDepth, depth * 2);
+			addresses.put(var, byDepth);
+		}
+		var bySlot = byDepth[depth];
+		if (bySlot == null || slot >= bySlot.length)
+			bySlot = byDepth[depth] = bySlot == null ? new Variable[slot + 1] : Arrays.copyOf(bySlot, slot * 2);
+		if (bySlot[slot] == null)
+			bySlot[slot] = var.resolved(depth, slot);
+		return bySlot[slot];
+	}
+
+	private Variable declare(Variable var) {
+		try {
+			final var resolved = resolved(var, slots[depth]);
+			env.dec(var, resolved);
+			slots[depth]++;
+			return resolved;
+		} catch (EnvironmentException e) { // already declared
+			return var;
+		}
+	}
+
+	private Variable resolve(Variable var) {
+		try {
+			return env.lookup(var);
+		} catch (EnvironmentException e) { // undeclared
+			return var;
+		}
+	}
+
+	@Override
+	public Stmt visitAssignStmt(Variable var, Exp exp) {
+		final var newExp = rebuild(exp);
+		return new AssignStmt(resolve(var), newExp);
+	}
+
+	// the initialization expression is resolved first, since it cannot refer to the declared variable
+	@Override
+	public Stmt visitVarStmt(Variable var, Exp exp) {
+		final var newExp = rebuild(exp);
+		return new VarStmt(declare(var), newExp);
+	}
+
+	@Override
+	public Block visitBlock(StmtSeq stmtSeq) {
+		enterScope();
+		final var block = super.visitBlock(stmtSeq);
+		exitScope();
+		return block;
+	}
+
+	// the loop variable is declared in a scope enclosing the block
+	@Override
+	public Stmt visitForStmt(Variable var, Exp exp, Block block) {
+		final var newExp = rebuild(exp);
+		enterScope();
+		final var newVar = declare(var);
+		final var newBlock = rebuild(block);
+		exitScope();
+		return new ForStmt(newVar, newExp, newBlock);
+	}
+
+	@Override
+	public Exp visitVariable(Variable var) {
+		return resolve(var);
+	}
+}
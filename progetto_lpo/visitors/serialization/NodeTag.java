@@ -0,0 +1,16 @@
+package progetto_lpo.visitors.serialization;
+
+/* tags identifying the AST nodes in the binary format of programs, each tag is written as one byte */
+enum NodeTag {
+	MY_LANG_PROG, ARRAY_STMT_SEQ, NON_EMPTY_STMT_SEQ, EMPTY_STMT_SEQ, ASSIGN_STMT, VAR_STMT, PRINT_STMT, IF_STMT,
+	FOR_STMT, BLOCK, ADD, MUL, AND, EQ, PAIR_LIT, SIGN, NOT, FST, SND, INT_LITERAL, BOOL_LITERAL, VARIABLE, DICT,
+	DICT_UPDATE, DICT_DELETE, DICT_ACCESS, DICT_LIT;
+
+	private static final NodeTag[] tags = values();
+
+	static NodeTag of(byte tag) {
+		if (tag < 0 || tag >= tags.length)
+			throw new IllegalArgumentException("Unknown node tag " + tag);
+		return tags[tag];
+	}
+}
@@ -0,0 +1,110 @@
+package progetto_lpo.visitors.serialization;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+import progetto_lpo.parser.SymbolTable;
+import progetto_lpo.parser.ast.*;
+
+/*
+ * builds the AST written by 'ProgWriter' directly from a buffer, which can be a memory-mapped file; variable ids
+ * are resolved through 'symbols', which must contain the variables of the program in the order of their ids
+ */
+public class ProgReader {
+
+	private final ByteBuffer in;
+	private final SymbolTable symbols;
+
+	public ProgReader(ByteBuffer in, SymbolTable symbols) {
+		this.in = requireNonNull(in);
+		this.symbols = requireNonNull(symbols);
+	}
+
+	private NodeTag readTag() {
+		return NodeTag.of(in.get());
+	}
+
+	// checks that the next node has tag 'expected'
+	private void expect(NodeTag expected) {
+		final var found = readTag();
+		if (found != expected)
+			throw new IllegalArgumentException(String.format("Expecting node %s, found %s", expected, found));
+	}
+
+	public Prog readProg() {
+		expect(NodeTag.MY_LANG_PROG);
+		return new MyLangProg(readStmtSeq());
+	}
+
+	private StmtSeq readStmtSeq() {
+		return switch (readTag()) {
+		case ARRAY_STMT_SEQ -> {
+			final var size = in.getInt();
+			final var stmts = new ArrayList<Stmt>(size);
+			for (var i = 0; i < size; i++)
+				stmts.add(readStmt());
+			yield new ArrayStmtSeq(stmts);
+		}
+		case NON_EMPTY_STMT_SEQ -> new NonEmptyStmtSeq(readStmt(), readStmtSeq());
+		case EMPTY_STMT_SEQ -> new EmptyStmtSeq();
+		default -> throw new IllegalArgumentException("Expecting a sequence of statements");
+		};
+	}
+
+	private Block readBlock() {
+		expect(NodeTag.BLOCK);
+		return new Block(readStmtSeq());
+	}
+
+	private Variable readVariable() {
+		expect(NodeTag.VARIABLE);
+		return symbols.get(in.getInt());
+	}
+
+	private Stmt readStmt() {
+		return switch (readTag()) {
+		case ASSIGN_STMT -> new AssignStmt(readVariable(), readExp());
+		case VAR_STMT -> new VarStmt(readVariable(), readExp());
+		case PRINT_STMT -> new PrintStmt(readExp());
+		case IF_STMT -> {
+			final var exp = readExp();
+			final var thenBlock = readBlock();
+			yield in.get() != 0 ? new IfStmt(exp, thenBlock, readBlock()) : new IfStmt(exp, thenBlock);
+		}
+		case FOR_STMT -> new ForStmt(readVariable(), readExp(), readBlock());
+		case BLOCK -> new Block(readStmtSeq());
+		default -> throw new IllegalArgumentException("Expecting a statement");
+		};
+	}
+
+	private Exp readExp() {
+		return switch (readTag()) {
+		case ADD -> new Add(readExp(), readExp());
+		case MUL -> new Mul(readExp(), readExp());
+		case AND -> new And(readExp(), readExp());
+		case EQ -> new Eq(readExp(), readExp());
+		case PAIR_LIT -> new PairLit(readExp(), readExp());
+		case SIGN -> new Sign(readExp());
+		case NOT -> new Not(readExp());
+		case FST -> new Fst(readExp());
+		case SND -> new Snd(readExp());
+		case INT_LITERAL -> new IntLiteral(in.getInt());
+		case BOOL_LITERAL -> new BoolLiteral(in.get() != 0);
+		case VARIABLE -> symbols.get(in.getInt());
+		case DICT -> new Dict(readExp(), readExp());
+		case DICT_UPDATE -> new DictUpdate(readExp(), readExp(), readExp());
+		case DICT_DELETE -> new DictDelete(readExp(), readExp());
+		case DICT_ACCESS -> new DictAccess(readExp(), readExp());
+		case DICT_LIT -> {
+			final var entries = new TreeMap<Integer, Exp>();
+			for (var size = in.getInt(); size > 0; size--)
+				entries.put(in.getInt(), readExp());
+			yield new DictLit(entries);
+		}
+		default -> throw new IllegalArgumentException("Expecting an expression");
+		};
+	}
+}
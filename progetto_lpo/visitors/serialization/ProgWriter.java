@@ -0,0 +1,227 @@
+package progetto_lpo.visitors.serialization;
+
+import static progetto_lpo.visitors.serialization.NodeTag.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.SortedMap;
+
+import progetto_lpo.parser.ast.AST;
+import progetto_lpo.parser.ast.Block;
+import progetto_lpo.parser.ast.Exp;
+import progetto_lpo.parser.ast.Stmt;
+import progetto_lpo.parser.ast.StmtSeq;
+import progetto_lpo.parser.ast.Variable;
+import progetto_lpo.visitors.Visitor;
+
+import static java.util.Objects.requireNonNull;
+
+/*
+ * writes the AST in pre-order, each node as its tag followed by its children; variables are written as their id
+ * in the symbol table, literals as their value; 'ProgReader' reads the same format back
+ */
+public class ProgWriter implements Visitor<Void> {
+
+	private final DataOutputStream out;
+
+	public ProgWriter(DataOutputStream out) {
+		this.out = requireNonNull(out);
+	}
+
+	// writes the tag of a node followed by its children
+	private Void write(NodeTag tag, AST... children) {
+		tag(tag);
+		for (var child : children)
+			child.accept(this);
+		return null;
+	}
+
+	private void tag(NodeTag tag) {
+		try {
+			out.writeByte(tag.ordinal());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeInt(int value) {
+		try {
+			out.writeInt(value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeBoolean(boolean value) {
+		try {
+			out.writeBoolean(value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// programs
+
+	@Override
+	public Void visitMyLangProg(StmtSeq stmtSeq) {
+		return write(MY_LANG_PROG, stmtSeq);
+	}
+
+	// statements
+
+	@Override
+	public Void visitAssignStmt(Variable var, Exp exp) {
+		return write(ASSIGN_STMT, var, exp);
+	}
+
+	@Override
+	public Void visitPrintStmt(Exp exp) {
+		return write(PRINT_STMT, exp);
+	}
+
+	@Override
+	public Void visitVarStmt(Variable var, Exp exp) {
+		return write(VAR_STMT, var, exp);
+	}
+
+	@Override
+	public Void visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		write(IF_STMT, exp, thenBlock);
+		writeBoolean(elseBlock != null);
+		if (elseBlock != null)
+			elseBlock.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitForStmt(Variable var, Exp exp, Block block) {
+		return write(FOR_STMT, var, exp, block);
+	}
+
+	@Override
+	public Void visitBlock(StmtSeq stmtSeq) {
+		return write(BLOCK, stmtSeq);
+	}
+
+	// sequences of statements
+
+	@Override
+	public Void visitEmptyStmtSeq() {
+		return write(EMPTY_STMT_SEQ);
+	}
+
+	@Override
+	public Void visitNonEmptyStmtSeq(Stmt first, StmtSeq rest) {
+		return write(NON_EMPTY_STMT_SEQ, first, rest);
+	}
+
+	@Override
+	public Void visitArrayStmtSeq(List<Stmt> stmts) {
+		tag(ARRAY_STMT_SEQ);
+		writeInt(stmts.size());
+		for (var stmt : stmts)
+			stmt.accept(this);
+		return null;
+	}
+
+	// expressions
+
+	@Override
+	public Void visitAdd(Exp left, Exp right) {
+		return write(ADD, left, right);
+	}
+
+	@Override
+	public Void visitIntLiteral(int value) {
+		tag(INT_LITERAL);
+		writeInt(value);
+		return null;
+	}
+
+	@Override
+	public Void visitMul(Exp left, Exp right) {
+		return write(MUL, left, right);
+	}
+
+	@Override
+	public Void visitSign(Exp exp) {
+		return write(SIGN, exp);
+	}
+
+	@Override
+	public Void visitVariable(Variable var) {
+		tag(VARIABLE);
+		writeInt(var.id());
+		return null;
+	}
+
+	@Override
+	public Void visitNot(Exp exp) {
+		return write(NOT, exp);
+	}
+
+	@Override
+	public Void visitAnd(Exp left, Exp right) {
+		return write(AND, left, right);
+	}
+
+	@Override
+	public Void visitBoolLiteral(boolean value) {
+		tag(BOOL_LITERAL);
+		writeBoolean(value);
+		return null;
+	}
+
+	@Override
+	public Void visitEq(Exp left, Exp right) {
+		return write(EQ, left, right);
+	}
+
+	@Override
+	public Void visitPairLit(Exp left, Exp right) {
+		return write(PAIR_LIT, left, right);
+	}
+
+	@Override
+	public Void visitFst(Exp exp) {
+		return write(FST, exp);
+	}
+
+	@Override
+	public Void visitSnd(Exp exp) {
+		return write(SND, exp);
+	}
+
+	@Override
+	public Void visitDict(Exp key, Exp value) {
+		return write(DICT, key, value);
+	}
+
+	@Override
+	public Void visitDictLit(SortedMap<Integer, Exp> entries) {
+		tag(DICT_LIT);
+		writeInt(entries.size());
+		entries.forEach((key, value) -> {
+			writeInt(key);
+			value.accept(this);
+		});
+		return null;
+	}
+
+	@Override
+	public Void visitDictUpdate(Exp dict, Exp exp, Exp value) {
+		return write(DICT_UPDATE, dict, exp, value);
+	}
+
+	@Override
+	public Void visitDictDelete(Exp dict, Exp index) {
+		return write(DICT_DELETE, dict, index);
+	}
+
+	@Override
+	public Void visitDictAccess(Exp dict, Exp index) {
+		return write(DICT_ACCESS, dict, index);
+	}
+}
@@ -0,0 +1,152 @@
+package progetto_lpo.visitors.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import progetto_lpo.parser.MyLangParser;
+import progetto_lpo.parser.SymbolTable;
+import progetto_lpo.parser.ast.Prog;
+import progetto_lpo.visitors.typechecking.Typecheck;
+
+/*
+ * on-disk cache of parsed programs, stored in a directory as files named after the SHA-256 hash of the format
+ * version, of the class files of the parser, of the typechecker and of the writer of the AST, and of the source
+ * code, with extension '.lpoc'; hence a new build of the compiler never reuses the files of an older one
+ *
+ * the cache is best effort: files which cannot be read or written are ignored, and the program is parsed again
+ *
+ * each file contains
+ * - the magic number 'LPOC' and the format version
+ * - a flag telling whether the program passed the typechecker
+ * - the names of the variables, in the order of their ids
+ * - the AST, in the format of 'ProgWriter'
+ */
+public class ProgramCache {
+
+	private static final int MAGIC = 0x4C504F43; // "LPOC"
+	/*
+	 * changed whenever the format of the files or the static semantics change, since the flag of a stored program
+	 * tells whether it passed the typechecker of the version which stored it; version 2 iterates dicts, not integers
+	 */
+	private static final int VERSION = 2;
+	private static final String EXTENSION = ".lpoc";
+	// classes whose code determines the content of the files
+	private static final Class<?>[] COMPILER = { MyLangParser.class, Typecheck.class, ProgWriter.class };
+
+	private final Path dir;
+
+	// a program loaded from the cache, with its symbol table
+	public record Entry(Prog prog, SymbolTable symbols, boolean typechecked) {
+	}
+
+	public ProgramCache(Path dir) {
+		this.dir = requireNonNull(dir);
+	}
+
+	// hash of the identity of the compiler and of the content of the 'source' file, used as key of the cache
+	public String key(Path source) throws IOException {
+		try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+			final var digest = MessageDigest.getInstance("SHA-256");
+			digest.update(new byte[] { (byte) (VERSION >>> 24), (byte) (VERSION >>> 16), (byte) (VERSION >>> 8),
+					(byte) VERSION });
+			for (var cls : COMPILER)
+				try (var in = classFile(cls)) {
+					if (in != null) // the class file may not be available as a resource, e.g. in a custom image
+						digest.update(in.readAllBytes());
+				}
+			digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError(e); // SHA-256 is supported by all Java platforms
+		}
+	}
+
+	private static InputStream classFile(Class<?> cls) {
+		return cls.getResourceAsStream(cls.getSimpleName() + ".class");
+	}
+
+	private Path file(String key) {
+		return dir.resolve(key + EXTENSION);
+	}
+
+	// loads the program with key 'key'; returns null if it is not in the cache or its file is not valid or readable
+	public Entry load(String key) {
+		final var file = file(key);
+		if (!Files.isRegularFile(file))
+			return null;
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final var in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (in.getInt() != MAGIC || in.getInt() != VERSION)
+				return null;
+			final var typechecked = in.get() != 0;
+			final var symbols = new SymbolTable();
+			final var size = in.getInt();
+			for (var i = 0; i < size; i++) {
+				final var name = new byte[in.getInt()];
+				in.get(name);
+				symbols.intern(new String(name, UTF_8));
+			}
+			final var prog = new ProgReader(in, symbols).readProg();
+			return in.hasRemaining() ? null : new Entry(prog, symbols, typechecked);
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+			return null; // truncated or corrupted file, the program has to be parsed again
+		} catch (IOException e) {
+			return null; // unreadable file, the program has to be parsed again
+		}
+	}
+
+	/*
+	 * stores 'prog' with key 'key' and returns true, or returns false if the file cannot be written, e.g. because the
+	 * directory is read-only; the file is written aside and then moved into place, so that concurrent runs never
+	 * read a partially written file
+	 */
+	public boolean store(String key, Prog prog, SymbolTable symbols, boolean typechecked) {
+		Path tmp = null;
+		try {
+			Files.createDirectories(dir);
+			tmp = Files.createTempFile(dir, key, EXTENSION + ".tmp");
+			write(tmp, prog, symbols, typechecked);
+			Files.move(tmp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			if (tmp != null)
+				try {
+					Files.deleteIfExists(tmp);
+				} catch (IOException ignored) {
+				}
+			return false;
+		}
+	}
+
+	private static void write(Path file, Prog prog, SymbolTable symbols, boolean typechecked) throws IOException {
+		try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeBoolean(typechecked);
+			out.writeInt(symbols.size());
+			for (var i = 0; i < symbols.size(); i++) {
+				final var name = symbols.get(i).name().getBytes(UTF_8);
+				out.writeInt(name.length);
+				out.write(name);
+			}
+			prog.accept(new ProgWriter(out));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+}
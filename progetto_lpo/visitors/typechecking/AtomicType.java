@@ -1,5 +1,5 @@
 package progetto_lpo.visitors.typechecking;
 
 public enum AtomicType implements Type {
-	BOOL, INT, DICT;
+	BOOL, INT;
 }
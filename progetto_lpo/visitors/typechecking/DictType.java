@@ -1,30 +1,19 @@
 package progetto_lpo.visitors.typechecking;
 
-public class DictType implements Type{
-    private final Type key;
-	private final Type value;
+import static java.util.Objects.requireNonNull;
 
-    public static final String TYPE_NAME = "DICT";
+// type of dicts, whose keys are integers and whose values have type 'valueType'
+public record DictType(Type valueType) implements Type {
 
-    public DictType(Type key, Type value) {
-        this.key = key;
-        this.value = value;
-    }
+	public static final String TYPE_NAME = "DICT";
 
-    public Type getFstType() {
-        return key;
-    }
+	public DictType {
+		requireNonNull(valueType);
+	}
 
-    public Type getSndType() {
-        return value;
-    }
+	@Override
+	public String toString() {
+		return valueType + " " + TYPE_NAME;
+	}
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj)
-            return true;
-        if (obj instanceof DictType pt)
-            return key.equals(pt.key) && value.equals(pt.value);
-        return false;
-    }
 }
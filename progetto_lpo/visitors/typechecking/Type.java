@@ -12,6 +12,12 @@ public interface Type {
 		throw new TypecheckerException(toString(), PairType.TYPE_NAME);
 	}
 
+	default DictType checkIsDictType() throws TypecheckerException {
+		if (this instanceof DictType dt)
+			return dt;
+		throw new TypecheckerException(toString(), DictType.TYPE_NAME);
+	}
+
 	default Type getFstPairType() throws TypecheckerException {
 		return checkIsPairType().fstType();
 	}
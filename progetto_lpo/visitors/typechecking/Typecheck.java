@@ -2,6 +2,9 @@ package progetto_lpo.visitors.typechecking;
 
 import static progetto_lpo.visitors.typechecking.AtomicType.*;
 
+import java.util.List;
+import java.util.SortedMap;
+
 import progetto_lpo.environments.EnvironmentException;
 import progetto_lpo.environments.GenEnvironment;
 import progetto_lpo.parser.ast.Block;
@@ -86,6 +89,13 @@ public class Typecheck implements Visitor<Type> {
 		return null;
 	}
 
+	@Override
+	public Type visitArrayStmtSeq(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			stmt.accept(this);
+		return null;
+	}
+
 	// static semantics of expressions; a type is returned by the visitor
 
 	@Override
@@ -154,43 +164,57 @@ public class Typecheck implements Visitor<Type> {
 		return exp.accept(this).getSndPairType();
 	}
 
+	// dicts are iterated in key order, the loop variable is bound to the pairs of their entries
 	@Override
 	public Type visitForStmt(Variable var, Exp exp, Block block) {
-	    BOOL.checkEqual(exp.accept(this));
-	    env.enterScope();
-	    env.dec(var, INT);
-	    block.accept(this);
-	    env.exitScope();
-	    return null;
+		final var dictType = exp.accept(this).checkIsDictType();
+		env.enterScope();
+		env.dec(var, new PairType(INT, dictType.valueType()));
+		block.accept(this);
+		env.exitScope();
+		return null;
 	}
 
 	@Override
-	public Type visitDict(Exp key, Exp value)
-	{
+	public DictType visitDict(Exp key, Exp value) {
 		INT.checkEqual(key.accept(this));
-		//value.accept(this);
-		return DICT;
+		return new DictType(value.accept(this));
 	}
 
+	// the optimizer builds dict literals with at least one entry, all values must have the same type
 	@Override
-	public Type visitDictUpdate(Exp dict, Exp exp, Exp value) {
+	public DictType visitDictLit(SortedMap<Integer, Exp> entries) {
+		Type valueType = null;
+		for (var value : entries.values()) {
+			final var type = value.accept(this);
+			if (valueType == null)
+				valueType = type;
+			else
+				valueType.checkEqual(type);
+		}
+		return new DictType(valueType);
+	}
+
+	@Override
+	public DictType visitDictUpdate(Exp dict, Exp exp, Exp value) {
+		final var dictType = dict.accept(this).checkIsDictType();
 		INT.checkEqual(exp.accept(this));
-		//exp.accept(this).checkEqual(value.accept(this));
-		return null;
+		dictType.valueType().checkEqual(value.accept(this));
+		return dictType;
 	}
 
-	// da rivedere
 	@Override
-	public Type visitDictDelete(Exp dict, Exp index) {
+	public DictType visitDictDelete(Exp dict, Exp index) {
+		final var dictType = dict.accept(this).checkIsDictType();
 		INT.checkEqual(index.accept(this));
-		return null;
+		return dictType;
 	}
 
-	// da rivedere
 	@Override
 	public Type visitDictAccess(Exp dict, Exp index) {
+		final var dictType = dict.accept(this).checkIsDictType();
 		INT.checkEqual(index.accept(this));
-		return null;
+		return dictType.valueType();
 	}
 
 }